@@ -0,0 +1,73 @@
+package com.study.ioc.benchmark;
+
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanLookupBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    private int beanCount;
+
+    @Param({"2"})
+    private int fanOut;
+
+    private ApplicationContext context;
+    private String[] beanIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new GenericApplicationContext(SyntheticContext.location(SyntheticContext.write(beanCount, fanOut)));
+        beanIds = new String[1024];
+        for (int i = 0; i < beanIds.length; i++) {
+            // fresh strings, callers rarely pass the interned id instance
+            beanIds[i] = new String(SyntheticContext.beanId(i % beanCount));
+        }
+    }
+
+    @Benchmark
+    public Object getBeanById() {
+        return context.getBean(nextBeanId());
+    }
+
+    @Benchmark
+    public UniqueBean getBeanByType() {
+        return context.getBean(UniqueBean.class);
+    }
+
+    @Benchmark
+    public SyntheticBean getBeanByIdAndType() {
+        return context.getBean(nextBeanId(), SyntheticBean.class);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object getBeanByIdContended() {
+        return context.getBean(nextBeanId());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public UniqueBean getBeanByTypeContended() {
+        return context.getBean(UniqueBean.class);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public SyntheticBean getBeanByIdAndTypeContended() {
+        return context.getBean(nextBeanId(), SyntheticBean.class);
+    }
+
+    private String nextBeanId() {
+        return beanIds[ThreadLocalRandom.current().nextInt(beanIds.length)];
+    }
+}
@@ -0,0 +1,58 @@
+package com.study.ioc.benchmark;
+
+import com.study.ioc.context.ContextSettings;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextStartupBenchmark {
+
+    @Param({"100", "1000", "10000", "50000"})
+    private int beanCount;
+
+    @Param({"0", "2", "4"})
+    private int fanOut;
+
+    private String location;
+    private Map<String, BeanDefinition> beanDefinitions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path file = SyntheticContext.write(beanCount, fanOut);
+        location = SyntheticContext.location(file);
+        beanDefinitions = new XmlBeanDefinitionReader(location).getBeanDefinition();
+    }
+
+    @Benchmark
+    public Map<String, BeanDefinition> parse() {
+        return new XmlBeanDefinitionReader(location).getBeanDefinition();
+    }
+
+    @Benchmark
+    public GenericApplicationContext refresh() {
+        return new GenericApplicationContext(() -> beanDefinitions);
+    }
+
+    @Benchmark
+    public GenericApplicationContext parallelRefresh() {
+        ContextSettings settings = new ContextSettings();
+        settings.setParallelRefresh(true);
+        return new GenericApplicationContext(() -> beanDefinitions, settings);
+    }
+
+    @Benchmark
+    public GenericApplicationContext parseAndRefresh() {
+        return new GenericApplicationContext(location);
+    }
+}
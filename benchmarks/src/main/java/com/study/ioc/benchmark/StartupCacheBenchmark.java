@@ -0,0 +1,68 @@
+package com.study.ioc.benchmark;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.binary.StartupCache;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// what checking the startup cache costs next to the parse it saves, on a class path directory of classFiles files
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StartupCacheBenchmark {
+
+    @Param({"1000", "10000"})
+    private int beanCount;
+
+    @Param({"1000", "50000"})
+    private int classFiles;
+
+    private XmlBeanDefinitionReader reader;
+    private String classPath;
+    private StartupCache startupCache;
+    private byte[] key;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        reader = new XmlBeanDefinitionReader(SyntheticContext.location(SyntheticContext.write(beanCount, 2)));
+        Path classes = Files.createTempDirectory("synthetic-classes");
+        for (int i = 0; i < classFiles; i++) {
+            Path packageDirectory = classes.resolve("package" + i / 100);
+            Files.createDirectories(packageDirectory);
+            Files.write(packageDirectory.resolve("Class" + i + ".class"), new byte[64]);
+        }
+        classPath = classes + File.pathSeparator + System.getProperty("java.class.path");
+        Path cacheFile = Files.createTempFile("startup", ".cache");
+        cacheFile.toFile().deleteOnExit();
+        startupCache = new StartupCache(cacheFile);
+        key = key();
+        startupCache.store(key, new StartupCache.Snapshot(reader.getBeanDefinition(), null,
+                Collections.<StartupCache.SetterSignature>emptyList()));
+    }
+
+    @Benchmark
+    public byte[] key() throws IOException {
+        return StartupCache.getKey(XmlBeanDefinitionReader.class.getName(), reader.getResources(), classPath);
+    }
+
+    @Benchmark
+    public StartupCache.Snapshot keyAndLoad() throws IOException {
+        return startupCache.load(key());
+    }
+
+    @Benchmark
+    public Map<String, BeanDefinition> parse() {
+        return reader.getBeanDefinition();
+    }
+}
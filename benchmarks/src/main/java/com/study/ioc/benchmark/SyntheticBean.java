@@ -0,0 +1,71 @@
+package com.study.ioc.benchmark;
+
+public class SyntheticBean {
+    private String name;
+    private int size;
+    private double ratio;
+    private Object dependency0;
+    private Object dependency1;
+    private Object dependency2;
+    private Object dependency3;
+    private Object dependency4;
+    private Object dependency5;
+    private Object dependency6;
+    private Object dependency7;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public double getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    public void setDependency0(Object dependency0) {
+        this.dependency0 = dependency0;
+    }
+
+    public void setDependency1(Object dependency1) {
+        this.dependency1 = dependency1;
+    }
+
+    public void setDependency2(Object dependency2) {
+        this.dependency2 = dependency2;
+    }
+
+    public void setDependency3(Object dependency3) {
+        this.dependency3 = dependency3;
+    }
+
+    public void setDependency4(Object dependency4) {
+        this.dependency4 = dependency4;
+    }
+
+    public void setDependency5(Object dependency5) {
+        this.dependency5 = dependency5;
+    }
+
+    public void setDependency6(Object dependency6) {
+        this.dependency6 = dependency6;
+    }
+
+    public void setDependency7(Object dependency7) {
+        this.dependency7 = dependency7;
+    }
+}
@@ -0,0 +1,49 @@
+package com.study.ioc.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// writes a context of SyntheticBean definitions, bean i refers to up to fanOut beans with a lower index
+public class SyntheticContext {
+    static final int MAX_FAN_OUT = 8;
+    static final String UNIQUE_BEAN_ID = "uniqueBean";
+
+    public static Path write(int beanCount, int fanOut) throws IOException {
+        if (fanOut > MAX_FAN_OUT) {
+            throw new IllegalArgumentException("Fan out is limited to " + MAX_FAN_OUT);
+        }
+        Path file = Files.createTempFile("synthetic-context-" + beanCount + "-" + fanOut, ".xml");
+        file.toFile().deleteOnExit();
+        Random random = new Random(beanCount * 31L + fanOut);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<beans>\n");
+            for (int i = 0; i < beanCount; i++) {
+                writer.write("    <bean id=\"" + beanId(i) + "\" class=\"" + SyntheticBean.class.getName() + "\">\n");
+                writer.write("        <property name=\"name\" value=\"" + beanId(i) + "\"/>\n");
+                writer.write("        <property name=\"size\" value=\"" + (i % 64) + "\"/>\n");
+                writer.write("        <property name=\"ratio\" value=\"0.75\"/>\n");
+                for (int ref = 0; ref < Math.min(fanOut, i); ref++) {
+                    writer.write("        <property name=\"dependency" + ref + "\" ref=\"" + beanId(random.nextInt(i)) + "\"/>\n");
+                }
+                writer.write("    </bean>\n");
+            }
+            writer.write("    <bean id=\"" + UNIQUE_BEAN_ID + "\" class=\"" + UniqueBean.class.getName() + "\">\n");
+            writer.write("        <property name=\"dependency\" ref=\"" + beanId(0) + "\"/>\n");
+            writer.write("    </bean>\n");
+            writer.write("</beans>\n");
+        }
+        return file;
+    }
+
+    public static String location(Path file) {
+        return "file:" + file.toAbsolutePath();
+    }
+
+    static String beanId(int index) {
+        return "bean" + index;
+    }
+}
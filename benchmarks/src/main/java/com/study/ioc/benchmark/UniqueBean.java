@@ -0,0 +1,9 @@
+package com.study.ioc.benchmark;
+
+public class UniqueBean {
+    private Object dependency;
+
+    public void setDependency(Object dependency) {
+        this.dependency = dependency;
+    }
+}
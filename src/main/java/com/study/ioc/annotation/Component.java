@@ -0,0 +1,24 @@
+package com.study.ioc.annotation;
+
+import com.study.ioc.entity.BeanDefinition;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// the bean id defaults to the simple class name starting with a lower case letter
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Component {
+    String value() default "";
+
+    String scope() default BeanDefinition.SCOPE_SINGLETON;
+
+    boolean lazyInit() default false;
+
+    // pooling applies to prototypes only
+    int poolSize() default 0;
+
+    long poolMaxIdleMillis() default 0;
+}
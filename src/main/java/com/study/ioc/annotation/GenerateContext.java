@@ -0,0 +1,16 @@
+package com.study.ioc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// generates an ApplicationContext named className in the package of the annotated type at compile time;
+// value lists the context files, read from the class output or the class path of the compilation
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateContext {
+    String[] value();
+
+    String className();
+}
@@ -0,0 +1,14 @@
+package com.study.ioc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// marks a field or setter as ref property, without an id the only scanned component of a matching type is used,
+// or the bean named like the property when there is none
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface Inject {
+    String value() default "";
+}
@@ -0,0 +1,825 @@
+package com.study.ioc.aot;
+
+import com.study.ioc.convert.ConversionService;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.ConversionException;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.*;
+
+// writes the source of an ApplicationContext that creates and wires the beans with plain constructor and setter calls;
+// lookups by id and by type are string switches, so nothing is loaded or looked up reflectively at runtime
+class ContextSourceGenerator {
+    private static final String BEAN_POST_PROCESSOR = "com.study.ioc.processor.BeanPostProcessor";
+    private static final String BEAN_FACTORY_POST_PROCESSOR = "com.study.ioc.processor.BeanFactoryPostProcessor";
+    private static final Map<TypeKind, Class<?>> PRIMITIVE_CLASSES = new EnumMap<>(TypeKind.class);
+
+    static {
+        PRIMITIVE_CLASSES.put(TypeKind.INT, Integer.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.LONG, Long.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.SHORT, Short.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.BYTE, Byte.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.DOUBLE, Double.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.FLOAT, Float.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.BOOLEAN, Boolean.TYPE);
+        PRIMITIVE_CLASSES.put(TypeKind.CHAR, Character.TYPE);
+    }
+
+    private final Elements elements;
+    private final Types types;
+    private final String packageName;
+    private final String className;
+    private final Map<String, BeanDefinition> beanDefinitions;
+    private final ConversionService conversionService = new ConversionService();
+    private final Map<String, TypeElement> beanTypes = new HashMap<>();
+    private final Map<String, String> fieldNames = new HashMap<>();
+    private final List<String> warnings = new ArrayList<>();
+    private boolean usesConversionService;
+    private boolean usesReflection;
+
+    ContextSourceGenerator(Elements elements, Types types, String packageName, String className,
+                           Map<String, BeanDefinition> beanDefinitions) {
+        this.elements = elements;
+        this.types = types;
+        this.packageName = packageName;
+        this.className = className;
+        this.beanDefinitions = new TreeMap<>(beanDefinitions);
+    }
+
+    List<String> getWarnings() {
+        return warnings;
+    }
+
+    // throws IllegalArgumentException for definitions a generated context can not handle
+    String generate(String description) {
+        int index = 0;
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            beanTypes.put(beanDefinition.getId(), getBeanType(beanDefinition));
+            fieldNames.put(beanDefinition.getId(), "bean" + index++);
+        }
+        List<String> creationOrder = getCreationOrder();
+        checkPrototypeCycles();
+
+        StringBuilder body = new StringBuilder();
+        appendConstructor(body, creationOrder);
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (beanDefinition.isPrototype()) {
+                appendPrototypeFactory(body, beanDefinition);
+            }
+        }
+        appendLookups(body);
+        appendClose(body, getDependencyOrder());
+        if (usesReflection) {
+            appendInvoke(body);
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.study.ioc.context.ApplicationContext;\n");
+        if (usesConversionService) {
+            source.append("import com.study.ioc.convert.ConversionService;\n");
+        }
+        source.append("import com.study.ioc.exception.BeanDestructionException;\n")
+                .append("import com.study.ioc.exception.BeanInstantiationException;\n")
+                .append("import com.study.ioc.exception.NoSuchBeanDefinitionException;\n")
+                .append("import com.study.ioc.exception.NoUniqueBeanOfTypeException;\n\n");
+        if (usesReflection) {
+            source.append("import java.lang.reflect.InvocationTargetException;\n")
+                    .append("import java.lang.reflect.Method;\n");
+        }
+        source.append("import java.util.ArrayList;\n")
+                .append("import java.util.Arrays;\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.LinkedHashMap;\n")
+                .append("import java.util.List;\n")
+                .append("import java.util.Map;\n")
+                .append("import java.util.concurrent.CompletableFuture;\n")
+                .append("import java.util.concurrent.ConcurrentHashMap;\n")
+                .append("import java.util.concurrent.ConcurrentMap;\n\n")
+                .append("// generated from ").append(description).append(", do not edit\n")
+                .append("public final class ").append(className).append(" implements ApplicationContext {\n")
+                .append("    private static final List<String> BEAN_NAMES = Collections.unmodifiableList(Arrays.asList(");
+        List<String> literals = new ArrayList<>();
+        for (String id : beanDefinitions.keySet()) {
+            literals.add(toLiteral(id));
+        }
+        source.append(String.join(", ", literals)).append("));\n");
+        if (usesConversionService) {
+            source.append("    private static final ConversionService CONVERSION_SERVICE = new ConversionService();\n");
+        }
+        source.append('\n');
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (beanDefinition.isSingleton()) {
+                source.append("    private ").append(getTypeName(beanDefinition.getId())).append(' ')
+                        .append(fieldNames.get(beanDefinition.getId())).append("; // ").append(beanDefinition.getId()).append('\n');
+            }
+        }
+        source.append("    private final ConcurrentMap<Class<?>, Map<String, Object>> beansOfType = new ConcurrentHashMap<>();\n");
+        source.append("    private volatile boolean closed;\n\n");
+        source.append(body);
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private TypeElement getBeanType(BeanDefinition beanDefinition) {
+        String id = beanDefinition.getId();
+        if (!beanDefinition.isSingleton() && !beanDefinition.isPrototype()) {
+            throw new IllegalArgumentException("Bean " + id + " has scope " + beanDefinition.getScope()
+                    + ", generated contexts support singleton and prototype beans only");
+        }
+        if (beanDefinition.isPooled()) {
+            throw new IllegalArgumentException("Bean " + id + " is pooled, generated contexts do not support pools");
+        }
+        if (beanDefinition.isSingleton() && beanDefinition.isLazyInit()) {
+            throw new IllegalArgumentException("Bean " + id + " is lazy-init, generated contexts create every singleton"
+                    + " when they are constructed");
+        }
+        TypeElement type = elements.getTypeElement(beanDefinition.getClassName().replace('$', '.'));
+        if (type == null) {
+            throw new IllegalArgumentException("Class " + beanDefinition.getClassName() + " of bean " + id + " not found");
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT) || type.getKind() != ElementKind.CLASS) {
+            throw new IllegalArgumentException("Class " + beanDefinition.getClassName() + " of bean " + id + " can not be instantiated");
+        }
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            boolean inner = element.getEnclosingElement() instanceof TypeElement && !element.getModifiers().contains(Modifier.STATIC);
+            if (!isAccessible(element) || inner) {
+                throw new IllegalArgumentException("Class " + beanDefinition.getClassName() + " of bean " + id
+                        + " is not accessible from " + getQualifiedClassName());
+            }
+        }
+        if (isSubtype(type.asType(), BEAN_POST_PROCESSOR) || isSubtype(type.asType(), BEAN_FACTORY_POST_PROCESSOR)) {
+            throw new IllegalArgumentException("Bean " + id + " is a post processor, generated contexts do not run post processors");
+        }
+        return type;
+    }
+
+    // singletons passed to a constructor come first; a prototype passed to a constructor needs all of its refs
+    private List<String> getCreationOrder() {
+        List<String> creationOrder = new ArrayList<>();
+        Set<String> created = new HashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (beanDefinition.isSingleton()) {
+                addToCreationOrder(beanDefinition.getId(), new LinkedHashSet<>(), created, creationOrder);
+            }
+        }
+        return creationOrder;
+    }
+
+    private void addToCreationOrder(String id, LinkedHashSet<String> inCreation, Set<String> created, List<String> creationOrder) {
+        if (created.contains(id)) {
+            return;
+        }
+        if (!inCreation.add(id)) {
+            throw new IllegalArgumentException("Circular constructor reference between beans: "
+                    + String.join(" -> ", inCreation) + " -> " + id);
+        }
+        for (ConstructorArgument argument : beanDefinitions.get(id).getConstructorArguments()) {
+            if (argument.isRef()) {
+                addRequiredSingletons(getDefinition(id, argument.getRef()), inCreation, created, creationOrder, new HashSet<>());
+            }
+        }
+        inCreation.remove(id);
+        created.add(id);
+        creationOrder.add(id);
+    }
+
+    private void addRequiredSingletons(BeanDefinition beanDefinition, LinkedHashSet<String> inCreation, Set<String> created,
+                                       List<String> creationOrder, Set<String> visitedPrototypes) {
+        if (beanDefinition.isSingleton()) {
+            addToCreationOrder(beanDefinition.getId(), inCreation, created, creationOrder);
+            return;
+        }
+        if (visitedPrototypes.add(beanDefinition.getId())) {
+            for (String ref : getRefs(beanDefinition)) {
+                addRequiredSingletons(getDefinition(beanDefinition.getId(), ref), inCreation, created, creationOrder, visitedPrototypes);
+            }
+        }
+    }
+
+    // singletons after the singletons they refer to, beans in a setter cycle in the order the cycle is entered
+    private List<String> getDependencyOrder() {
+        List<String> dependencyOrder = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (beanDefinition.isSingleton()) {
+                addToDependencyOrder(beanDefinition, visited, dependencyOrder);
+            }
+        }
+        return dependencyOrder;
+    }
+
+    private void addToDependencyOrder(BeanDefinition beanDefinition, Set<String> visited, List<String> dependencyOrder) {
+        if (!visited.add(beanDefinition.getId())) {
+            return;
+        }
+        for (String ref : getRefs(beanDefinition)) {
+            BeanDefinition refDefinition = getDefinition(beanDefinition.getId(), ref);
+            if (refDefinition.isSingleton()) {
+                addToDependencyOrder(refDefinition, visited, dependencyOrder);
+            }
+        }
+        dependencyOrder.add(beanDefinition.getId());
+    }
+
+    private void checkPrototypeCycles() {
+        Set<String> checked = new HashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (beanDefinition.isPrototype()) {
+                checkPrototypeCycles(beanDefinition.getId(), new LinkedHashSet<>(), checked);
+            }
+        }
+    }
+
+    private void checkPrototypeCycles(String id, LinkedHashSet<String> path, Set<String> checked) {
+        if (checked.contains(id)) {
+            return;
+        }
+        if (!path.add(id)) {
+            throw new IllegalArgumentException("Circular reference between prototype beans: "
+                    + String.join(" -> ", path) + " -> " + id);
+        }
+        for (String ref : getRefs(beanDefinitions.get(id))) {
+            if (getDefinition(id, ref).isPrototype()) {
+                checkPrototypeCycles(ref, path, checked);
+            }
+        }
+        path.remove(id);
+        checked.add(id);
+    }
+
+    private void appendConstructor(StringBuilder body, List<String> creationOrder) {
+        body.append("    public ").append(className).append("() {\n")
+                .append("        try {\n");
+        for (String id : creationOrder) {
+            body.append("            ").append(fieldNames.get(id)).append(" = ").append(getNewExpression(beanDefinitions.get(id))).append(";\n");
+        }
+        for (String id : creationOrder) {
+            appendSetters(body, beanDefinitions.get(id), fieldNames.get(id));
+        }
+        for (String id : creationOrder) {
+            appendLifecycleCall(body, beanDefinitions.get(id), beanDefinitions.get(id).getInitMethod(), fieldNames.get(id), "            ");
+        }
+        body.append("        } catch (RuntimeException e) {\n")
+                .append("            throw e;\n")
+                .append("        } catch (Exception e) {\n")
+                .append("            throw new BeanInstantiationException(\"Error creating beans of ").append(className).append("\", e);\n")
+                .append("        }\n")
+                .append("    }\n\n");
+    }
+
+    private void appendPrototypeFactory(StringBuilder body, BeanDefinition beanDefinition) {
+        String id = beanDefinition.getId();
+        body.append("    private ").append(getTypeName(id)).append(' ').append(getFactoryName(id)).append("() {\n")
+                .append("        try {\n")
+                .append("            ").append(getTypeName(id)).append(" bean = ").append(getNewExpression(beanDefinition)).append(";\n");
+        appendSetters(body, beanDefinition, "bean");
+        appendLifecycleCall(body, beanDefinition, beanDefinition.getInitMethod(), "bean", "            ");
+        body.append("            return bean;\n")
+                .append("        } catch (RuntimeException e) {\n")
+                .append("            throw e;\n")
+                .append("        } catch (Exception e) {\n")
+                .append("            throw new BeanInstantiationException(\"Error creating bean ").append(escape(id)).append("\", e);\n")
+                .append("        }\n")
+                .append("    }\n\n");
+    }
+
+    private void appendLookups(StringBuilder body) {
+        body.append("    @Override\n")
+                .append("    public Object getBean(String beanId) {\n")
+                .append("        checkOpen();\n")
+                .append("        switch (beanId) {\n");
+        for (String id : beanDefinitions.keySet()) {
+            body.append("            case ").append(toLiteral(id)).append(":\n")
+                    .append("                return ").append(getReference(id)).append(";\n");
+        }
+        body.append("            default:\n")
+                .append("                throw new NoSuchBeanDefinitionException(beanId, null, null);\n")
+                .append("        }\n")
+                .append("    }\n\n");
+
+        Map<String, List<String>> idsByClass = new TreeMap<>();
+        for (String id : beanDefinitions.keySet()) {
+            idsByClass.computeIfAbsent(elements.getBinaryName(beanTypes.get(id)).toString(), name -> new ArrayList<>()).add(id);
+        }
+        body.append("    @Override\n")
+                .append("    public <T> T getBean(Class<T> clazz) {\n")
+                .append("        checkOpen();\n")
+                .append("        switch (clazz.getName()) {\n");
+        for (Map.Entry<String, List<String>> entry : idsByClass.entrySet()) {
+            String id = entry.getValue().get(0);
+            body.append("            case ").append(toLiteral(entry.getKey())).append(":\n")
+                    .append("                if (clazz == ").append(getTypeName(id)).append(".class) {\n");
+            if (entry.getValue().size() > 1) {
+                body.append("                    throw new NoUniqueBeanOfTypeException(\"More than one Bean of class \" + clazz.getName());\n");
+            } else {
+                body.append("                    return clazz.cast(").append(getReference(id)).append(");\n");
+            }
+            body.append("                }\n")
+                    .append("                break;\n");
+        }
+        body.append("            default:\n")
+                .append("                break;\n")
+                .append("        }\n")
+                .append("        throw new NoSuchBeanDefinitionException(null, clazz.getName(), null);\n")
+                .append("    }\n\n");
+
+        body.append("    @Override\n")
+                .append("    public <T> T getBean(String id, Class<T> clazz) {\n")
+                .append("        checkOpen();\n")
+                .append("        Class<?> beanClass = getBeanClass(id);\n")
+                .append("        if (beanClass == null) {\n")
+                .append("            throw new NoSuchBeanDefinitionException(id, clazz.getName(), null);\n")
+                .append("        }\n")
+                .append("        if (beanClass != clazz) {\n")
+                .append("            throw new NoSuchBeanDefinitionException(id, clazz.getName(), beanClass.getName());\n")
+                .append("        }\n")
+                .append("        return clazz.cast(getBean(id));\n")
+                .append("    }\n\n")
+                .append("    private static Class<?> getBeanClass(String beanId) {\n")
+                .append("        switch (beanId) {\n");
+        for (String id : beanDefinitions.keySet()) {
+            body.append("            case ").append(toLiteral(id)).append(":\n")
+                    .append("                return ").append(getTypeName(id)).append(".class;\n");
+        }
+        body.append("            default:\n")
+                .append("                return null;\n")
+                .append("        }\n")
+                .append("    }\n\n");
+
+        // singletons are fields, so only the type test is left to do at runtime
+        body.append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public <T> Map<String, T> getBeansOfType(Class<T> clazz) {\n")
+                .append("        checkOpen();\n")
+                .append("        Map<String, Object> beans = beansOfType.get(clazz);\n")
+                .append("        if (beans == null) {\n")
+                .append("            Map<String, Object> matches = new LinkedHashMap<>();\n");
+        for (String id : new TreeSet<>(beanDefinitions.keySet())) {
+            if (beanDefinitions.get(id).isSingleton()) {
+                body.append("            if (clazz.isInstance(").append(fieldNames.get(id)).append(")) {\n")
+                        .append("                matches.put(").append(toLiteral(id)).append(", ").append(fieldNames.get(id)).append(");\n")
+                        .append("            }\n");
+            }
+        }
+        body.append("            beans = Collections.unmodifiableMap(matches);\n")
+                .append("            Map<String, Object> existing = beansOfType.putIfAbsent(clazz, beans);\n")
+                .append("            if (existing != null) {\n")
+                .append("                beans = existing;\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        return (Map<String, T>) beans;\n")
+                .append("    }\n\n");
+
+        body.append("    @Override\n")
+                .append("    public List<String> getBeanNames() {\n")
+                .append("        return new ArrayList<>(BEAN_NAMES);\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ApplicationContext getParent() {\n")
+                .append("        return null;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public CompletableFuture<Object> getBeanAsync(String beanId) {\n")
+                .append("        CompletableFuture<Object> bean = new CompletableFuture<>();\n")
+                .append("        try {\n")
+                .append("            bean.complete(getBean(beanId));\n")
+                .append("        } catch (RuntimeException e) {\n")
+                .append("            bean.completeExceptionally(e);\n")
+                .append("        }\n")
+                .append("        return bean;\n")
+                .append("    }\n\n")
+                .append("    private void checkOpen() {\n")
+                .append("        if (closed) {\n")
+                .append("            throw new IllegalStateException(\"Context is closed\");\n")
+                .append("        }\n")
+                .append("    }\n\n");
+    }
+
+    // a singleton is destroyed before the singletons it refers to, one after another
+    private void appendClose(StringBuilder body, List<String> dependencyOrder) {
+        body.append("    @Override\n")
+                .append("    public void close() {\n")
+                .append("        synchronized (this) {\n")
+                .append("            if (closed) {\n")
+                .append("                return;\n")
+                .append("            }\n")
+                .append("            closed = true;\n")
+                .append("        }\n")
+                .append("        BeanDestructionException failure = null;\n");
+        for (int i = dependencyOrder.size() - 1; i >= 0; i--) {
+            String id = dependencyOrder.get(i);
+            BeanDefinition beanDefinition = beanDefinitions.get(id);
+            boolean closeable = beanDefinition.getDestroyMethod() == null && isSubtype(beanTypes.get(id).asType(), "java.lang.AutoCloseable");
+            if (beanDefinition.getDestroyMethod() == null && !closeable) {
+                continue;
+            }
+            body.append("        try {\n");
+            if (closeable) {
+                body.append("            ").append(fieldNames.get(id)).append(".close();\n");
+            } else {
+                appendLifecycleCall(body, beanDefinition, beanDefinition.getDestroyMethod(), fieldNames.get(id), "            ");
+            }
+            body.append("        } catch (Exception e) {\n")
+                    .append("            BeanDestructionException destroyFailure = new BeanDestructionException(\"Error destroying bean ")
+                    .append(escape(id)).append("\", e);\n")
+                    .append("            if (failure == null) {\n")
+                    .append("                failure = destroyFailure;\n")
+                    .append("            } else {\n")
+                    .append("                failure.addSuppressed(destroyFailure);\n")
+                    .append("            }\n")
+                    .append("        }\n");
+        }
+        body.append("        if (failure != null) {\n")
+                .append("            throw failure;\n")
+                .append("        }\n")
+                .append("    }\n");
+    }
+
+    private void appendInvoke(StringBuilder body) {
+        body.append('\n')
+                .append("    // lifecycle methods the generated code can not call directly\n")
+                .append("    private static void invoke(Object bean, String methodName) throws Exception {\n")
+                .append("        for (Class<?> clazz = bean.getClass(); clazz != null; clazz = clazz.getSuperclass()) {\n")
+                .append("            for (Method method : clazz.getDeclaredMethods()) {\n")
+                .append("                if (method.getName().equals(methodName) && method.getParameterCount() == 0) {\n")
+                .append("                    method.setAccessible(true);\n")
+                .append("                    try {\n")
+                .append("                        method.invoke(bean);\n")
+                .append("                    } catch (InvocationTargetException e) {\n")
+                .append("                        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;\n")
+                .append("                    }\n")
+                .append("                    return;\n")
+                .append("                }\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        throw new NoSuchMethodException(bean.getClass().getName() + \".\" + methodName + \"()\");\n")
+                .append("    }\n");
+    }
+
+    private void appendSetters(StringBuilder body, BeanDefinition beanDefinition, String variable) {
+        String id = beanDefinition.getId();
+        TypeElement type = beanTypes.get(id);
+        for (Map.Entry<String, String> property : new TreeMap<>(nullToEmpty(beanDefinition.getValueDependencies())).entrySet()) {
+            ExecutableElement setter = findValueSetter(type, id, property.getKey());
+            body.append("            ").append(variable).append('.').append(setter.getSimpleName()).append('(')
+                    .append(getValueExpression(property.getValue(), setter.getParameters().get(0).asType(), id, property.getKey()))
+                    .append(");\n");
+        }
+        for (Map.Entry<String, String> property : new TreeMap<>(nullToEmpty(beanDefinition.getRefDependencies())).entrySet()) {
+            ExecutableElement setter = findRefSetter(type, id, property.getKey(), getDefinition(id, property.getValue()));
+            body.append("            ").append(variable).append('.').append(setter.getSimpleName()).append('(')
+                    .append(getReference(property.getValue())).append(");\n");
+        }
+    }
+
+    private void appendLifecycleCall(StringBuilder body, BeanDefinition beanDefinition, String methodName, String variable,
+                                     String indent) {
+        if (methodName == null) {
+            return;
+        }
+        ExecutableElement method = findLifecycleMethod(beanTypes.get(beanDefinition.getId()), methodName);
+        if (method == null) {
+            throw new IllegalArgumentException("No method " + methodName + "() in " + beanDefinition.getClassName()
+                    + " of bean " + beanDefinition.getId());
+        }
+        if (isAccessible(method)) {
+            body.append(indent).append(variable).append('.').append(methodName).append("();\n");
+        } else {
+            usesReflection = true;
+            warnings.add("Method " + beanDefinition.getClassName() + "." + methodName + "() of bean " + beanDefinition.getId()
+                    + " is not accessible, the generated context calls it reflectively");
+            body.append(indent).append("invoke(").append(variable).append(", ").append(toLiteral(methodName)).append(");\n");
+        }
+    }
+
+    private String getNewExpression(BeanDefinition beanDefinition) {
+        String id = beanDefinition.getId();
+        List<ConstructorArgument> arguments = beanDefinition.getConstructorArguments();
+        ExecutableElement constructor = findConstructor(beanTypes.get(id), id, arguments);
+        List<String> expressions = new ArrayList<>(arguments.size());
+        for (int i = 0; i < arguments.size(); i++) {
+            ConstructorArgument argument = arguments.get(i);
+            expressions.add(argument.isRef() ? getReference(argument.getRef())
+                    : getValueExpression(argument.getValue(), constructor.getParameters().get(i).asType(), id, "constructor argument " + i));
+        }
+        return "new " + getTypeName(id) + "(" + String.join(", ", expressions) + ")";
+    }
+
+    // same preferences as at runtime: value arguments prefer String, int, double, boolean, public constructors win ties
+    private ExecutableElement findConstructor(TypeElement type, String id, List<ConstructorArgument> arguments) {
+        ExecutableElement best = null;
+        int bestScore = Integer.MAX_VALUE;
+        boolean ambiguous = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().size() != arguments.size() || !isAccessible(constructor)) {
+                continue;
+            }
+            int score = constructor.getModifiers().contains(Modifier.PUBLIC) ? 0 : 1;
+            for (int i = 0; i < arguments.size() && score >= 0; i++) {
+                TypeMirror parameterType = constructor.getParameters().get(i).asType();
+                ConstructorArgument argument = arguments.get(i);
+                if (argument.isRef()) {
+                    if (!isAssignable(getDefinition(id, argument.getRef()), parameterType)) {
+                        score = -1;
+                    }
+                } else if (!isConvertible(parameterType)) {
+                    score = -1;
+                } else {
+                    score += 2 * getValuePreference(parameterType);
+                }
+            }
+            if (score < 0) {
+                continue;
+            }
+            if (score < bestScore) {
+                best = constructor;
+                bestScore = score;
+                ambiguous = false;
+            } else if (score == bestScore) {
+                ambiguous = true;
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("No accessible constructor of " + type.getQualifiedName() + " matches " + arguments
+                    + " of bean " + id);
+        }
+        if (ambiguous) {
+            throw new IllegalArgumentException("Ambiguous constructors of " + type.getQualifiedName() + " for " + arguments
+                    + " of bean " + id);
+        }
+        return best;
+    }
+
+    private ExecutableElement findValueSetter(TypeElement type, String id, String propertyName) {
+        ExecutableElement best = null;
+        int bestPreference = Integer.MAX_VALUE;
+        for (ExecutableElement setter : getSetters(type, id, propertyName)) {
+            TypeMirror parameterType = setter.getParameters().get(0).asType();
+            if (isConvertible(parameterType) && getValuePreference(parameterType) < bestPreference) {
+                best = setter;
+                bestPreference = getValuePreference(parameterType);
+            }
+        }
+        if (best == null) {
+            throw new IllegalArgumentException("No setter of " + type.getQualifiedName() + " for value property " + propertyName
+                    + " of bean " + id);
+        }
+        return best;
+    }
+
+    private ExecutableElement findRefSetter(TypeElement type, String id, String propertyName, BeanDefinition ref) {
+        for (ExecutableElement setter : getSetters(type, id, propertyName)) {
+            if (isAssignable(ref, setter.getParameters().get(0).asType())) {
+                return setter;
+            }
+        }
+        throw new IllegalArgumentException("No setter of " + type.getQualifiedName() + " accepts bean " + ref.getId()
+                + " for property " + propertyName + " of bean " + id);
+    }
+
+    private List<ExecutableElement> getSetters(TypeElement type, String id, String propertyName) {
+        String setterName = "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+        List<ExecutableElement> setters = new ArrayList<>();
+        boolean inaccessible = false;
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(setterName) && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                if (isAccessible(method)) {
+                    setters.add(method);
+                } else {
+                    inaccessible = true;
+                }
+            }
+        }
+        if (setters.isEmpty() && inaccessible) {
+            throw new IllegalArgumentException("Setter " + type.getQualifiedName() + "." + setterName + " of bean " + id
+                    + " is not accessible from " + getQualifiedClassName());
+        }
+        return setters;
+    }
+
+    private ExecutableElement findLifecycleMethod(TypeElement type, String methodName) {
+        for (TypeElement clazz = type; clazz != null; clazz = getSuperclass(clazz)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(clazz.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals(methodName) && method.getParameters().isEmpty()) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private String getValueExpression(String value, TypeMirror type, String id, String property) {
+        TypeMirror erasure = types.erasure(type);
+        Class<?> literalClass = getLiteralClass(erasure);
+        if (literalClass == String.class) {
+            return toLiteral(value);
+        }
+        if (literalClass != null) {
+            try {
+                return toLiteral(conversionService.convert(value, literalClass));
+            } catch (ConversionException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Can not convert value " + value + " of " + property + " of bean " + id
+                        + " to " + erasure, e);
+            }
+        }
+        usesConversionService = true;
+        String typeName = erasure.toString();
+        return "(" + typeName + ") CONVERSION_SERVICE.convert(" + toLiteral(value) + ", " + typeName + ".class)";
+    }
+
+    // String, primitives and their wrappers are converted while generating, other types when the context starts
+    private Class<?> getLiteralClass(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return PRIMITIVE_CLASSES.get(type.getKind());
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        String name = ((TypeElement) types.asElement(type)).getQualifiedName().toString();
+        if (name.equals("java.lang.String")) {
+            return String.class;
+        }
+        for (Class<?> primitiveClass : PRIMITIVE_CLASSES.values()) {
+            TypeElement wrapper = types.boxedClass(types.getPrimitiveType(getKind(primitiveClass)));
+            if (wrapper.getQualifiedName().contentEquals(name)) {
+                return primitiveClass;
+            }
+        }
+        return null;
+    }
+
+    private static TypeKind getKind(Class<?> primitiveClass) {
+        for (Map.Entry<TypeKind, Class<?>> entry : PRIMITIVE_CLASSES.entrySet()) {
+            if (entry.getValue() == primitiveClass) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalArgumentException(primitiveClass.getName());
+    }
+
+    // generic types would need their type arguments at runtime
+    private boolean isConvertible(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isConvertible(((ArrayType) type).getComponentType());
+        }
+        return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty();
+    }
+
+    private int getValuePreference(TypeMirror type) {
+        Class<?> literalClass = getLiteralClass(types.erasure(type));
+        boolean primitive = type.getKind().isPrimitive();
+        if (literalClass == String.class) {
+            return 0;
+        } else if (primitive && literalClass == Integer.TYPE) {
+            return 1;
+        } else if (primitive && literalClass == Double.TYPE) {
+            return 2;
+        } else if (primitive && literalClass == Boolean.TYPE) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private boolean isAssignable(BeanDefinition ref, TypeMirror type) {
+        return !type.getKind().isPrimitive()
+                && types.isAssignable(types.erasure(beanTypes.get(ref.getId()).asType()), types.erasure(type));
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeElement superType = elements.getTypeElement(className);
+        return superType != null && types.isAssignable(types.erasure(type), types.erasure(superType.asType()));
+    }
+
+    private boolean isAccessible(Element element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        PackageElement elementPackage = elements.getPackageOf(element);
+        return elementPackage.getQualifiedName().contentEquals(packageName);
+    }
+
+    private BeanDefinition getDefinition(String id, String ref) {
+        BeanDefinition beanDefinition = beanDefinitions.get(ref);
+        if (beanDefinition == null) {
+            throw new IllegalArgumentException("Bean " + id + " refers to missing bean " + ref);
+        }
+        return beanDefinition;
+    }
+
+    private List<String> getRefs(BeanDefinition beanDefinition) {
+        List<String> refs = new ArrayList<>(nullToEmpty(beanDefinition.getRefDependencies()).values());
+        for (ConstructorArgument argument : beanDefinition.getConstructorArguments()) {
+            if (argument.isRef()) {
+                refs.add(argument.getRef());
+            }
+        }
+        return refs;
+    }
+
+    private String getReference(String id) {
+        return beanDefinitions.get(id).isPrototype() ? getFactoryName(id) + "()" : fieldNames.get(id);
+    }
+
+    private String getFactoryName(String id) {
+        return "create" + Character.toUpperCase(fieldNames.get(id).charAt(0)) + fieldNames.get(id).substring(1);
+    }
+
+    private String getTypeName(String id) {
+        return beanTypes.get(id).getQualifiedName().toString();
+    }
+
+    private String getQualifiedClassName() {
+        return packageName.isEmpty() ? className : packageName + "." + className;
+    }
+
+    private static Map<String, String> nullToEmpty(Map<String, String> dependencies) {
+        return dependencies == null ? Collections.emptyMap() : dependencies;
+    }
+
+    private static String toLiteral(Object value) {
+        if (value instanceof String) {
+            return "\"" + escape((String) value) + "\"";
+        }
+        if (value instanceof Character) {
+            char c = (Character) value;
+            return c == '\'' ? "'\\''" : "'" + escape(String.valueOf(c)) + "'";
+        }
+        if (value instanceof Long) {
+            return value + "L";
+        }
+        if (value instanceof Short) {
+            return "(short) " + value;
+        }
+        if (value instanceof Byte) {
+            return "(byte) " + value;
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isNaN(d) ? "Double.NaN" : Double.isInfinite(d)
+                    ? (d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY") : d + "d";
+        }
+        if (value instanceof Float) {
+            float f = (Float) value;
+            return Float.isNaN(f) ? "Float.NaN" : Float.isInfinite(f)
+                    ? (f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY") : f + "f";
+        }
+        return String.valueOf(value);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c == '\r') {
+                escaped.append("\\r");
+            } else if (c == '\t') {
+                escaped.append("\\t");
+            } else if (c == '\b') {
+                escaped.append("\\b");
+            } else if (c == '\f') {
+                escaped.append("\\f");
+            } else if (c < 0x20) {
+                // javac translates unicode escapes before lexing, so control characters cannot use them
+                escaped.append(String.format("\\%03o", (int) c));
+            } else if (c > 0x7E) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
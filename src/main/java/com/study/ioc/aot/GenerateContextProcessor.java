@@ -0,0 +1,124 @@
+package com.study.ioc.aot;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import com.study.ioc.resource.ByteBufferResource;
+import com.study.ioc.resource.Resource;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// reads the context files named by @GenerateContext with the XML reader and writes a generated ApplicationContext
+@SupportedAnnotationTypes(GenerateContextProcessor.GENERATE_CONTEXT_ANNOTATION)
+public class GenerateContextProcessor extends AbstractProcessor {
+    static final String GENERATE_CONTEXT_ANNOTATION = "com.study.ioc.annotation.GenerateContext";
+    private static final StandardLocation[] CONTEXT_LOCATIONS = {
+            StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH};
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                AnnotationMirror generateContext = getAnnotationMirror(element);
+                if (generateContext != null) {
+                    generate(element, generateContext);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(Element element, AnnotationMirror generateContext) {
+        List<String> paths = new ArrayList<>();
+        String className = null;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(generateContext).entrySet()) {
+            String name = entry.getKey().getSimpleName().toString();
+            if (name.equals("value")) {
+                for (Object path : (List<?>) entry.getValue().getValue()) {
+                    paths.add((String) ((AnnotationValue) path).getValue());
+                }
+            } else if (name.equals("className")) {
+                className = (String) entry.getValue().getValue();
+            }
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            List<Resource> resources = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                resources.add(readResource(path));
+            }
+            Map<String, BeanDefinition> beanDefinitions = new XmlBeanDefinitionReader(resources).getBeanDefinition();
+            ContextSourceGenerator generator = new ContextSourceGenerator(processingEnv.getElementUtils(),
+                    processingEnv.getTypeUtils(), packageName, className, beanDefinitions);
+            String source = generator.generate(String.join(", ", paths));
+            for (String warning : generator.getWarnings()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, warning, element, generateContext);
+            }
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedName, element);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(source);
+            }
+        } catch (IOException | ParseContextException | IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Can not generate context " + qualifiedName + ": " + e.getMessage(), element, generateContext);
+        }
+    }
+
+    // at test-compile the resources are already copied to the class output
+    private Resource readResource(String path) throws IOException {
+        String location = path.startsWith("classpath:") ? path.substring("classpath:".length()) : path;
+        for (StandardLocation standardLocation : CONTEXT_LOCATIONS) {
+            try {
+                FileObject file = processingEnv.getFiler().getResource(standardLocation, "", location);
+                try (InputStream inputStream = file.openInputStream()) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[8192];
+                    for (int count; (count = inputStream.read(buffer)) != -1; ) {
+                        bytes.write(buffer, 0, count);
+                    }
+                    return new ByteBufferResource(bytes.toByteArray(), location);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                // not in this location
+            }
+        }
+        throw new IOException("Context file " + path + " not found");
+    }
+
+    private static AnnotationMirror getAnnotationMirror(Element element) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(GENERATE_CONTEXT_ANNOTATION)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+}
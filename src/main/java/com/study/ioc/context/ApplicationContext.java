@@ -1,11 +1,34 @@
 package com.study.ioc.context;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-public interface ApplicationContext {
+public interface ApplicationContext extends AutoCloseable {
     Object getBean(String beanId);
     <T> T getBean(Class<T> clazz);
     <T> T getBean(String id, Class<T> clazz);
+
+    // singletons of the type or a subtype by id, unlike getBean(Class) which matches the exact class;
+    // beans created per use have no single instance and are left out, so are the beans of the parent
+    <T> Map<String, T> getBeansOfType(Class<T> clazz);
+
+    // checks nothing until the first get(), contexts that can bind the lookup once override it
+    default <T> BeanHandle<T> getBeanHandle(String id, Class<T> clazz) {
+        return () -> getBean(id, clazz);
+    }
+
     List<String> getBeanNames();
 
+    // defined here or in a parent, without creating the bean
+    default boolean containsBean(String id) {
+        return getBeanNames().contains(id) || (getParent() != null && getParent().containsBean(id));
+    }
+
+    ApplicationContext getParent();
+    CompletableFuture<Object> getBeanAsync(String beanId);
+
+    // destroys the beans of this context, the parent is left open
+    @Override
+    void close();
 }
@@ -0,0 +1,8 @@
+package com.study.ioc.context;
+
+import java.util.function.Supplier;
+
+// a lookup by id and type bound once, meant to be kept by callers that need the same bean over and over
+@FunctionalInterface
+public interface BeanHandle<T> extends Supplier<T> {
+}
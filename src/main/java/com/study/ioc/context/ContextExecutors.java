@@ -0,0 +1,38 @@
+package com.study.ioc.context;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+// executors for ContextSettings.setExecutor, the sources stay on Java 8 so newer JDK APIs are looked up reflectively
+public final class ContextExecutors {
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private ContextExecutors() {
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    // one virtual thread per bean where the JDK has them, the common ForkJoinPool otherwise
+    public static Executor virtualThreadPerTask() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return ForkJoinPool.commonPool();
+        }
+        try {
+            return (Executor) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
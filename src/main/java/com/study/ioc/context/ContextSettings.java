@@ -0,0 +1,131 @@
+package com.study.ioc.context;
+
+import com.study.ioc.context.impl.LambdaInstantiationStrategy;
+import com.study.ioc.convert.ConversionService;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.metrics.ContextListener;
+import com.study.ioc.processor.BeanFactoryPostProcessor;
+import com.study.ioc.processor.BeanPostProcessor;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+public class ContextSettings {
+    private InstantiationStrategy instantiationStrategy = new LambdaInstantiationStrategy();
+    private boolean parallelRefresh;
+    private Executor executor;
+    private ContextListener contextListener;
+    private ConversionService conversionService = new ConversionService();
+    // beans missing in the context are looked up here, one refreshed parent can be shared by any number of children
+    private ApplicationContext parent;
+    private Duration destroyTimeout = Duration.ofSeconds(30);
+    private Path startupCache;
+    private final List<BeanFactoryPostProcessor> beanFactoryPostProcessors = new ArrayList<>();
+    private final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
+    private final Map<String, Scope> scopes = new HashMap<>();
+
+    public ContextSettings() {
+        scopes.put(BeanDefinition.SCOPE_THREAD, new ThreadScope());
+    }
+
+    public InstantiationStrategy getInstantiationStrategy() {
+        return instantiationStrategy;
+    }
+
+    public void setInstantiationStrategy(InstantiationStrategy instantiationStrategy) {
+        this.instantiationStrategy = instantiationStrategy;
+    }
+
+    public boolean isParallelRefresh() {
+        return parallelRefresh;
+    }
+
+    public void setParallelRefresh(boolean parallelRefresh) {
+        this.parallelRefresh = parallelRefresh;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    // null runs the refresh on the common ForkJoinPool
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public ContextListener getContextListener() {
+        return contextListener;
+    }
+
+    // null disables instrumentation
+    public void setContextListener(ContextListener contextListener) {
+        this.contextListener = contextListener;
+    }
+
+    public ConversionService getConversionService() {
+        return conversionService;
+    }
+
+    public void setConversionService(ConversionService conversionService) {
+        this.conversionService = conversionService;
+    }
+
+    public ApplicationContext getParent() {
+        return parent;
+    }
+
+    public void setParent(ApplicationContext parent) {
+        this.parent = parent;
+    }
+
+    public Duration getDestroyTimeout() {
+        return destroyTimeout;
+    }
+
+    // applies to every bean separately, close() moves on to the dependencies of a bean that did not stop in time
+    public void setDestroyTimeout(Duration destroyTimeout) {
+        this.destroyTimeout = destroyTimeout;
+    }
+
+    public Path getStartupCache() {
+        return startupCache;
+    }
+
+    // null disables the cache; readers that can not tell which files they read are never cached
+    public void setStartupCache(Path startupCache) {
+        this.startupCache = startupCache;
+    }
+
+    public List<BeanFactoryPostProcessor> getBeanFactoryPostProcessors() {
+        return beanFactoryPostProcessors;
+    }
+
+    public void addBeanFactoryPostProcessor(BeanFactoryPostProcessor beanFactoryPostProcessor) {
+        beanFactoryPostProcessors.add(beanFactoryPostProcessor);
+    }
+
+    public List<BeanPostProcessor> getBeanPostProcessors() {
+        return beanPostProcessors;
+    }
+
+    public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        beanPostProcessors.add(beanPostProcessor);
+    }
+
+    public Map<String, Scope> getScopes() {
+        return scopes;
+    }
+
+    // singleton and prototype are built in and can not be replaced
+    public void registerScope(String name, Scope scope) {
+        if (BeanDefinition.SCOPE_SINGLETON.equals(name) || BeanDefinition.SCOPE_PROTOTYPE.equals(name)) {
+            throw new IllegalArgumentException("Scope " + name + " can not be replaced");
+        }
+        scopes.put(name, scope);
+    }
+}
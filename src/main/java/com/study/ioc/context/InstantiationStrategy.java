@@ -0,0 +1,16 @@
+package com.study.ioc.context;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public interface InstantiationStrategy {
+    Supplier<Object> getInstantiator(Class<?> beanClass) throws ReflectiveOperationException;
+
+    // the function takes the constructor arguments in declaration order
+    Function<Object[], Object> getInstantiator(Constructor<?> constructor) throws ReflectiveOperationException;
+
+    BiConsumer<Object, Object> getSetter(Method setter) throws ReflectiveOperationException;
+}
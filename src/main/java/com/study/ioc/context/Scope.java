@@ -0,0 +1,11 @@
+package com.study.ioc.context;
+
+import java.util.function.Supplier;
+
+// decides which object a scoped bean refers to at the moment, objectFactory creates and wires a new one
+public interface Scope {
+    Object get(String beanId, Supplier<Object> objectFactory);
+
+    // returns the removed object or null
+    Object remove(String beanId);
+}
@@ -0,0 +1,26 @@
+package com.study.ioc.context;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// every thread gets its own object, the objects are not destroyed when the thread ends
+public class ThreadScope implements Scope {
+    private final ThreadLocal<Map<String, Object>> objects = ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public Object get(String beanId, Supplier<Object> objectFactory) {
+        Map<String, Object> threadObjects = objects.get();
+        Object object = threadObjects.get(beanId);
+        if (object == null) {
+            object = objectFactory.get();
+            threadObjects.put(beanId, object);
+        }
+        return object;
+    }
+
+    @Override
+    public Object remove(String beanId) {
+        return objects.get().remove(beanId);
+    }
+}
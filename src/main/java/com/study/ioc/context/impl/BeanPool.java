@@ -0,0 +1,115 @@
+package com.study.ioc.context.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// idle objects of a pooled prototype; borrow never blocks, it creates a new object when no idle one is left,
+// and release destroys the object when the pool is full
+public class BeanPool {
+    private final String beanId;
+    private final Supplier<Object> objectFactory;
+    private final Consumer<Object> destroyer;
+    private final long maxIdleNanos;
+    // every thread starts looking from its own slot, so threads on different cores rarely touch the same slot
+    private final AtomicReferenceArray<IdleObject> slots;
+
+    BeanPool(String beanId, int size, long maxIdleMillis, Supplier<Object> objectFactory, Consumer<Object> destroyer) {
+        this.beanId = beanId;
+        this.objectFactory = objectFactory;
+        this.destroyer = destroyer;
+        this.maxIdleNanos = maxIdleMillis * 1_000_000;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    public String getBeanId() {
+        return beanId;
+    }
+
+    public int getSize() {
+        return slots.length();
+    }
+
+    public Object borrow() {
+        int size = slots.length();
+        int start = getStartSlot(size);
+        long now = maxIdleNanos == 0 ? 0 : System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % size;
+            IdleObject idle = slots.get(slot);
+            if (idle != null && slots.compareAndSet(slot, idle, null)) {
+                if (isExpired(idle, now)) {
+                    destroyer.accept(idle.object);
+                    continue;
+                }
+                return idle.object;
+            }
+        }
+        return objectFactory.get();
+    }
+
+    public void release(Object object) {
+        int size = slots.length();
+        int start = getStartSlot(size);
+        IdleObject idle = new IdleObject(object, maxIdleNanos == 0 ? 0 : System.nanoTime());
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % size;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, idle)) {
+                return;
+            }
+        }
+        destroyer.accept(object);
+    }
+
+    public int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // destroys the objects idle for longer than the max idle time, borrow does the same for the slots it visits
+    public void evict() {
+        if (maxIdleNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < slots.length(); i++) {
+            IdleObject idle = slots.get(i);
+            if (idle != null && isExpired(idle, now) && slots.compareAndSet(i, idle, null)) {
+                destroyer.accept(idle.object);
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            IdleObject idle = slots.getAndSet(i, null);
+            if (idle != null) {
+                destroyer.accept(idle.object);
+            }
+        }
+    }
+
+    private boolean isExpired(IdleObject idle, long now) {
+        return maxIdleNanos != 0 && now - idle.releasedAt > maxIdleNanos;
+    }
+
+    private static int getStartSlot(int size) {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % size;
+    }
+
+    private static class IdleObject {
+        private final Object object;
+        private final long releasedAt;
+
+        IdleObject(Object object, long releasedAt) {
+            this.object = object;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
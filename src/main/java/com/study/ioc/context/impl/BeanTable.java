@@ -0,0 +1,114 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// immutable snapshot of the refreshed beans, safe to share between threads once published
+final class BeanTable {
+    static final Object NOT_UNIQUE = new Object();
+
+    private final String[] ids;
+    private final int[] hashes;
+    private final Object[] values;
+    private final int mask;
+    private final Map<Class<?>, Object> valuesByType;
+    private final List<String> beanNames;
+    // derived from the snapshot on first request, so it stays valid for as long as the snapshot
+    private final Map<Class<?>, Map<String, Object>> beansOfType = new ConcurrentHashMap<>();
+
+    BeanTable(Map<String, Bean> beans) {
+        int capacity = Integer.highestOneBit(Math.max(beans.size(), 1) * 2 - 1) << 1;
+        ids = new String[capacity];
+        hashes = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+
+        Map<Class<?>, Object> index = new HashMap<>();
+        List<String> names = new ArrayList<>(beans.size());
+        for (Bean bean : beans.values()) {
+            Object value = bean instanceof DeferredBean ? bean : bean.getValue();
+            if (value == null) {
+                continue;
+            }
+            String id = bean.getId().intern();
+            int hash = id.hashCode();
+            int slot = hash & mask;
+            while (ids[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            hashes[slot] = hash;
+            values[slot] = value;
+            names.add(id);
+            index.merge(getType(value), value, (existing, added) -> NOT_UNIQUE);
+        }
+        valuesByType = index;
+        beanNames = Collections.unmodifiableList(names);
+    }
+
+    // returns the bean object, a DeferredBean placeholder or null
+    Object get(String id) {
+        int hash = id.hashCode();
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String candidate = ids[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate == id || (hashes[slot] == hash && candidate.equals(id))) {
+                return values[slot];
+            }
+        }
+    }
+
+    // returns the only bean of exactly this class, NOT_UNIQUE or null
+    Object getByType(Class<?> clazz) {
+        return valuesByType.get(clazz);
+    }
+
+    // singletons assignable to clazz in id order, lazy ones are initialized on the way;
+    // not computeIfAbsent, initializing a bean may ask for the beans of another type
+    Map<String, Object> getBeansOfType(Class<?> clazz) {
+        Map<String, Object> beans = beansOfType.get(clazz);
+        if (beans == null) {
+            SortedMap<String, Object> matches = new TreeMap<>();
+            for (int slot = 0; slot < ids.length; slot++) {
+                Object value = values[slot];
+                if (value == null || !clazz.isAssignableFrom(getType(value))) {
+                    continue;
+                }
+                if (value instanceof DeferredBean) {
+                    DeferredBean deferredBean = (DeferredBean) value;
+                    if (!deferredBean.getBeanDefinition().isSingleton()) {
+                        continue;
+                    }
+                    value = deferredBean.getValue();
+                }
+                matches.put(ids[slot], value);
+            }
+            beans = Collections.unmodifiableMap(new LinkedHashMap<>(matches));
+            Map<String, Object> existing = beansOfType.putIfAbsent(clazz, beans);
+            if (existing != null) {
+                beans = existing;
+            }
+        }
+        return beans;
+    }
+
+    List<String> getBeanNames() {
+        return beanNames;
+    }
+
+    int size() {
+        return beanNames.size();
+    }
+
+    static Class<?> getType(Object value) {
+        return value instanceof DeferredBean ? ((DeferredBean) value).getBeanClass() : value.getClass();
+    }
+
+    static Object resolve(Object value) {
+        return value instanceof DeferredBean ? ((DeferredBean) value).getValue() : value;
+    }
+}
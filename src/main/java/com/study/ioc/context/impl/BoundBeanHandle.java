@@ -0,0 +1,45 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.BeanHandle;
+
+import java.util.function.Supplier;
+
+// holds what one lookup found together with the snapshot it was found in; get() is a volatile read and
+// a reference comparison until a reload or close publishes another snapshot, then the lookup runs once more
+final class BoundBeanHandle<T> implements BeanHandle<T> {
+    private final GenericApplicationContext context;
+    private final String id;
+    private final Class<T> clazz;
+    private volatile Binding<T> binding;
+
+    // the first lookup runs right away, so a wrong id or type fails where the handle is created
+    BoundBeanHandle(GenericApplicationContext context, String id, Class<T> clazz) {
+        this.context = context;
+        this.id = id;
+        this.clazz = clazz;
+        this.binding = context.bind(id, clazz);
+    }
+
+    @Override
+    public T get() {
+        Binding<T> current = binding;
+        if (current.table != context.getBeanTable()) {
+            current = context.bind(id, clazz);
+            binding = current;
+        }
+        return current.instance != null ? current.instance : current.supplier.get();
+    }
+
+    // either the instance of a singleton or a supplier for beans created per use and beans of the parent
+    static final class Binding<T> {
+        private final BeanTable table;
+        private final T instance;
+        private final Supplier<T> supplier;
+
+        Binding(BeanTable table, T instance, Supplier<T> supplier) {
+            this.table = table;
+            this.instance = instance;
+            this.supplier = supplier;
+        }
+    }
+}
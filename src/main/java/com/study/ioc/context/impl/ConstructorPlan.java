@@ -0,0 +1,37 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.convert.Converter;
+import com.study.ioc.entity.ConstructorArgument;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.function.Function;
+
+class ConstructorPlan {
+    private final Constructor<?> constructor;
+    private final Function<Object[], Object> instantiator;
+    // null where the argument is a ref
+    private final Converter<String, Object>[] converters;
+
+    ConstructorPlan(Constructor<?> constructor, Function<Object[], Object> instantiator, Converter<String, Object>[] converters) {
+        this.constructor = constructor;
+        this.instantiator = instantiator;
+        this.converters = converters;
+    }
+
+    Constructor<?> getConstructor() {
+        return constructor;
+    }
+
+    // refs holds the resolved ref arguments, the value arguments are converted into it
+    Object newInstance(List<ConstructorArgument> arguments, Object[] refs) {
+        Object[] values = refs.clone();
+        for (int i = 0; i < values.length; i++) {
+            ConstructorArgument argument = arguments.get(i);
+            if (!argument.isRef()) {
+                values[i] = converters[i].convert(argument.getValue());
+            }
+        }
+        return instantiator.apply(values);
+    }
+}
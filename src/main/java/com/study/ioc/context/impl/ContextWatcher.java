@@ -0,0 +1,95 @@
+package com.study.ioc.context.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// reloads the context whenever one of the watched context files changes
+public class ContextWatcher implements Closeable {
+    // editors write a file in several steps, events that come this close together trigger a single reload
+    private static final long QUIET_PERIOD_MILLIS = 50;
+
+    private final GenericApplicationContext context;
+    private final WatchService watchService;
+    private final Map<Path, Set<Path>> fileNamesByDirectory = new HashMap<>();
+    private final Thread thread;
+    private final Consumer<RuntimeException> errorHandler;
+
+    // failed reloads keep the current beans and are not reported
+    public ContextWatcher(GenericApplicationContext context, Path... files) throws IOException {
+        this(context, e -> {
+        }, files);
+    }
+
+    // failed reloads keep the current beans and are passed to errorHandler on the watcher thread
+    public ContextWatcher(GenericApplicationContext context, Consumer<RuntimeException> errorHandler, Path... files) throws IOException {
+        this.context = context;
+        this.errorHandler = errorHandler;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path file : files) {
+            Path absoluteFile = file.toAbsolutePath();
+            Path directory = absoluteFile.getParent();
+            if (!fileNamesByDirectory.containsKey(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                fileNamesByDirectory.put(directory, new HashSet<>());
+            }
+            fileNamesByDirectory.get(directory).add(absoluteFile.getFileName());
+        }
+        this.thread = new Thread(this::watch, "context-watcher");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean changed = isContextFileChanged(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isContextFileChanged(key);
+                }
+                if (changed) {
+                    try {
+                        context.reload();
+                    } catch (RuntimeException e) {
+                        errorHandler.accept(e);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private boolean isContextFileChanged(WatchKey key) {
+        boolean changed = false;
+        Set<Path> fileNames = fileNamesByDirectory.get((Path) key.watchable());
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileNames.contains((Path) event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
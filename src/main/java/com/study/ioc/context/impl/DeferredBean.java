@@ -0,0 +1,137 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.Scope;
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.CircularReferenceException;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// placeholder for lazy singletons, prototypes and scoped beans, the object is created on the first getValue();
+// other beans get a proxy of scoped and pooled beans injected
+class DeferredBean extends Bean {
+    private static final ThreadLocal<Set<String>> PROTOTYPES_IN_CREATION = ThreadLocal.withInitial(HashSet::new);
+
+    private final BeanDefinition beanDefinition;
+    private final Class<?> beanClass;
+    private final GenericApplicationContext context;
+    private final Map<String, Bean> beans;
+    private final Object lock;
+    private final Scope scope;
+    private final BeanPool pool;
+
+    private volatile Object instance;
+    private volatile Object proxy;
+    private Object earlyInstance;
+
+    DeferredBean(BeanDefinition beanDefinition, Class<?> beanClass, GenericApplicationContext context,
+                 Map<String, Bean> beans, Object lock, Scope scope) {
+        super(beanDefinition.getId(), null);
+        this.beanDefinition = beanDefinition;
+        this.beanClass = beanClass;
+        this.context = context;
+        this.beans = beans;
+        this.lock = lock;
+        this.scope = scope;
+        this.pool = beanDefinition.isPooled() ? new BeanPool(beanDefinition.getId(), beanDefinition.getPoolSize(),
+                beanDefinition.getPoolMaxIdleMillis(), this::createObject, object -> context.destroyObject(beanDefinition, object))
+                : null;
+    }
+
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    BeanDefinition getBeanDefinition() {
+        return beanDefinition;
+    }
+
+    boolean isInitialized() {
+        return instance != null;
+    }
+
+    BeanPool getPool() {
+        return pool;
+    }
+
+    boolean isProxied() {
+        return scope != null || pool != null;
+    }
+
+    Object getProxy() {
+        Object result = proxy;
+        if (result == null) {
+            synchronized (lock) {
+                result = proxy;
+                if (result == null) {
+                    result = ScopedProxy.create(this);
+                    proxy = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    Object getTarget() {
+        return pool != null ? pool.borrow() : getValue();
+    }
+
+    void releaseTarget(Object target) {
+        if (pool != null) {
+            pool.release(target);
+        }
+    }
+
+    @Override
+    public Object getValue() {
+        if (scope != null) {
+            return scope.get(getId(), this::createObject);
+        }
+        if (beanDefinition.isPrototype()) {
+            return createObject();
+        }
+        Object result = instance;
+        if (result == null) {
+            synchronized (lock) {
+                result = instance;
+                if (result == null) {
+                    // only the creating thread can get here while the bean is being wired
+                    if (earlyInstance != null) {
+                        return earlyInstance;
+                    }
+                    Bean bean = context.createBean(beanDefinition, beans);
+                    earlyInstance = bean.getValue();
+                    try {
+                        context.wireBean(beanDefinition, bean, beans);
+                    } finally {
+                        earlyInstance = null;
+                    }
+                    result = bean.getValue();
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setValue(Object value) {
+        throw new UnsupportedOperationException("Value of deferred bean " + getId() + " is managed by the context");
+    }
+
+    private Object createObject() {
+        Set<String> inCreation = PROTOTYPES_IN_CREATION.get();
+        if (!inCreation.add(getId())) {
+            throw new CircularReferenceException("Circular reference between prototype beans: " + inCreation);
+        }
+        try {
+            Bean bean = context.createBean(beanDefinition, beans);
+            context.wireBean(beanDefinition, bean, beans);
+            return bean.getValue();
+        } finally {
+            inCreation.remove(getId());
+        }
+    }
+}
@@ -1,23 +1,92 @@
 package com.study.ioc.context.impl;
 
 import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.BeanHandle;
+import com.study.ioc.context.ContextSettings;
+import com.study.ioc.context.InstantiationStrategy;
+import com.study.ioc.context.Scope;
+import com.study.ioc.convert.Converter;
 import com.study.ioc.entity.Bean;
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.SymbolTable;
+import com.study.ioc.exception.BeanDestructionException;
 import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.CircularReferenceException;
 import com.study.ioc.exception.NoSuchBeanDefinitionException;
 import com.study.ioc.exception.NoUniqueBeanOfTypeException;
+import com.study.ioc.exception.PostProcessBeanFactoryException;
 import com.study.ioc.exception.ProcessPostConstructException;
+import com.study.ioc.graph.DependencyGraph;
+import com.study.ioc.graph.DependencyReport;
+import com.study.ioc.metrics.BeanStep;
+import com.study.ioc.metrics.ContextListener;
+import com.study.ioc.metrics.LookupKind;
+import com.study.ioc.metrics.RefreshPhase;
+import com.study.ioc.processor.BeanFactoryPostProcessor;
+import com.study.ioc.processor.BeanPostProcessor;
+import com.study.ioc.processor.Ordered;
 import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.binary.StartupCache;
 import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import com.study.ioc.resource.Resource;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class GenericApplicationContext implements ApplicationContext {
+    private static final BeanTable NOT_REFRESHED = new BeanTable(Collections.emptyMap());
+    private static final BeanTable CLOSED = new BeanTable(Collections.emptyMap());
 
+    private volatile BeanTable beanTable = NOT_REFRESHED;
+    private final ContextSettings settings;
+    private final InstantiationStrategy instantiationStrategy;
+    private final InjectionPlanCache injectionPlans;
+    private final ContextListener listener;
+    private final ApplicationContext parent;
+    // one lock for creating all lazy singletons: creating one resolves its lazy refs while holding it,
+    // with a lock per bean two threads creating beans that refer to each other would take them in opposite orders
+    private final Object creationLock = new Object();
+    private PostProcessorPipeline postProcessors;
+    // post processed objects of beans destroyed by the context, to the objects the init method ran on;
+    // destroy methods run on those too, a processor may have wrapped them into objects without the method
+    private final Map<Object, Object> destroyTargets = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicBoolean refreshStarted = new AtomicBoolean();
+    private final CompletableFuture<Map<String, CompletableFuture<Bean>>> scheduledBeans = new CompletableFuture<>();
+    private final Object reloadLock = new Object();
+    private volatile BeanDefinitionReader definitionReader;
+    // what reload diffs against, guarded by reloadLock
+    private Map<String, BeanDefinition> beanDefinitions;
     private Map<String, Bean> beans;
+    // handed from reading the definitions to publishing them, refreshes and reloads do not overlap
+    private volatile List<List<String>> cachedLevels;
+    private volatile PendingSnapshot pendingSnapshot;
 
     GenericApplicationContext() {
+        this(new ContextSettings());
+    }
+
+    // creates a context without beans, populate it with refreshAsync
+    public GenericApplicationContext(ContextSettings settings) {
+        this.settings = settings;
+        this.instantiationStrategy = settings.getInstantiationStrategy();
+        this.injectionPlans = new InjectionPlanCache(instantiationStrategy, settings.getConversionService());
+        this.listener = settings.getContextListener();
+        this.parent = settings.getParent();
+        this.postProcessors = new PostProcessorPipeline(settings.getBeanPostProcessors());
     }
 
     public GenericApplicationContext(String... paths) {
@@ -25,87 +94,581 @@ public class GenericApplicationContext implements ApplicationContext {
     }
 
     public GenericApplicationContext(BeanDefinitionReader definitionReader) {
-        Map<String, BeanDefinition> beanDefinitions = definitionReader.getBeanDefinition();
+        this(definitionReader, new ContextSettings());
+    }
 
-        beans = createBeans(beanDefinitions);
-        injectValueDependencies(beanDefinitions, beans);
-        injectRefDependencies(beanDefinitions, beans);
+    public GenericApplicationContext(BeanDefinitionReader definitionReader, ContextSettings settings) {
+        this(settings);
+        refreshStarted.set(true);
+        this.definitionReader = definitionReader;
+        long refreshStart = listener == null ? 0 : System.nanoTime();
+        Map<String, Bean> processorBeans = new HashMap<>();
+        Map<String, BeanDefinition> allDefinitions = prepareBeanDefinitions(definitionReader, processorBeans, refreshStart);
+        Map<String, BeanDefinition> beanDefinitions = withoutProcessors(allDefinitions, processorBeans);
+        long start = listener == null ? 0 : System.nanoTime();
+
+        if (settings.isParallelRefresh()) {
+            publish(allDefinitions, join(createBeansAsync(beanDefinitions, getExecutor(), processorBeans, getCachedLevels(processorBeans))));
+            onPhase(RefreshPhase.CREATE_BEANS, start);
+        } else {
+            Map<String, Bean> createdBeans = createBeansSerially(beanDefinitions, processorBeans, getCachedLevels(processorBeans));
+            Map<String, CompletableFuture<Bean>> beanFutures = new HashMap<>(createdBeans.size());
+            for (Bean bean : createdBeans.values()) {
+                beanFutures.put(bean.getId(), CompletableFuture.completedFuture(bean));
+            }
+            scheduledBeans.complete(beanFutures);
+            publish(allDefinitions, createdBeans);
+        }
+        onPhase(RefreshPhase.REFRESH, refreshStart);
+    }
+
+    // the whole refresh, including reading the definitions, runs on the configured executor
+    public CompletableFuture<ApplicationContext> refreshAsync(BeanDefinitionReader definitionReader) {
+        if (!refreshStarted.compareAndSet(false, true)) {
+            throw new IllegalStateException("Context is already refreshed");
+        }
+        this.definitionReader = definitionReader;
+        Executor executor = getExecutor();
+        long refreshStart = listener == null ? 0 : System.nanoTime();
+        Map<String, Bean> processorBeans = new HashMap<>();
+        CompletableFuture<ApplicationContext> refresh = CompletableFuture.supplyAsync(
+                () -> prepareBeanDefinitions(definitionReader, processorBeans, refreshStart), executor)
+                .thenCompose(allDefinitions -> createBeansAsync(withoutProcessors(allDefinitions, processorBeans), executor, processorBeans,
+                        getCachedLevels(processorBeans))
+                        .thenApply(beans -> {
+                            publish(allDefinitions, beans);
+                            onPhase(RefreshPhase.REFRESH, refreshStart);
+                            return (ApplicationContext) this;
+                        }));
+        refresh.whenComplete((context, e) -> {
+            if (e != null) {
+                scheduledBeans.completeExceptionally(e);
+            }
+        });
+        return refresh;
+    }
+
+    // re-reads the definitions and rebuilds only the changed beans and the beans depending on them, directly or not;
+    // the new snapshot replaces the current one at once, on failure the current one stays in place
+    public Set<String> reload() {
+        synchronized (reloadLock) {
+            if (beanTable == CLOSED) {
+                throw new IllegalStateException("Context is closed");
+            }
+            if (beans == null) {
+                throw new IllegalStateException("Context is not refreshed yet");
+            }
+            long start = listener == null ? 0 : System.nanoTime();
+            Map<String, Bean> processorBeans = new HashMap<>();
+            Map<String, BeanDefinition> allDefinitions = prepareBeanDefinitions(definitionReader, processorBeans, start);
+            Set<String> rebuiltIds = getChangedBeanIds(beanDefinitions, allDefinitions, processorBeans.keySet());
+
+            Map<String, BeanDefinition> rebuiltDefinitions = new HashMap<>(rebuiltIds.size());
+            Map<String, Bean> keptBeans = new HashMap<>(processorBeans);
+            for (BeanDefinition beanDefinition : withoutProcessors(allDefinitions, processorBeans).values()) {
+                String id = beanDefinition.getId();
+                if (rebuiltIds.contains(id)) {
+                    rebuiltDefinitions.put(id, beanDefinition);
+                } else {
+                    keptBeans.put(id, beans.get(id));
+                }
+            }
+            cachedLevels = null;
+            Map<String, BeanDefinition> previousDefinitions = beanDefinitions;
+            Map<String, Bean> previousBeans = beans;
+            // rebuilt the same way as on refresh, so a context that refreshes serially can always be reloaded
+            publish(allDefinitions, settings.isParallelRefresh()
+                    ? join(createBeansAsync(rebuiltDefinitions, getExecutor(), keptBeans, null))
+                    : createBeansSerially(rebuiltDefinitions, keptBeans, null));
+            onPhase(RefreshPhase.REFRESH, start);
+            destroyReplacedBeans(previousDefinitions, previousBeans);
+            return Collections.unmodifiableSet(rebuiltDefinitions.keySet());
+        }
+    }
+
+    // the rebuilt and removed beans of the previous snapshot are destroyed as on close, once nothing can look them up;
+    // a failure to destroy them is thrown, but the new beans stay in place
+    private void destroyReplacedBeans(Map<String, BeanDefinition> previousDefinitions, Map<String, Bean> previousBeans) {
+        Map<String, BeanDefinition> replacedDefinitions = new HashMap<>();
+        Map<String, Bean> replacedBeans = new HashMap<>();
+        for (Map.Entry<String, Bean> bean : previousBeans.entrySet()) {
+            String id = bean.getKey();
+            BeanDefinition beanDefinition = previousDefinitions.get(id);
+            if (beanDefinition != null && beans.get(id) != bean.getValue()) {
+                replacedDefinitions.put(id, beanDefinition);
+                replacedBeans.put(id, bean.getValue());
+            }
+        }
+        if (!replacedBeans.isEmpty()) {
+            destroyBeans(replacedDefinitions, replacedBeans);
+        }
+    }
+
+    // a bean is destroyed after every bean referring to it, independent branches are destroyed in parallel;
+    // failures and timeouts are reported once the whole context is torn down
+    @Override
+    public void close() {
+        Map<String, BeanDefinition> closedDefinitions;
+        Map<String, Bean> closedBeans;
+        synchronized (reloadLock) {
+            if (beanTable == CLOSED) {
+                return;
+            }
+            refreshStarted.set(true);
+            closedDefinitions = beanDefinitions;
+            closedBeans = beans;
+            beanDefinitions = null;
+            beans = null;
+            beanTable = CLOSED;
+        }
+        if (closedBeans != null) {
+            destroyBeans(closedDefinitions, closedBeans);
+        }
+    }
+
+    void destroyBeans(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        DependencyGraph graph = new DependencyGraph(beanDefinitions);
+        Executor executor = getExecutor();
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "context-destroy-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, CompletableFuture<Void>> destroyed = new TreeMap<>();
+            for (String id : graph.getBeanIds()) {
+                scheduleDestroy(id, graph, beanDefinitions, beans, destroyed, new HashSet<>(), executor, timer);
+            }
+            CompletableFuture.allOf(destroyed.values().toArray(new CompletableFuture[0]))
+                    .exceptionally(e -> null).join();
+            RuntimeException failure = getFailure(destroyed.values());
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    // beans referring to each other in a cycle are destroyed in the order the cycle is entered
+    private CompletableFuture<Void> scheduleDestroy(String id, DependencyGraph graph, Map<String, BeanDefinition> beanDefinitions,
+                                                    Map<String, Bean> beans, Map<String, CompletableFuture<Void>> destroyed,
+                                                    Set<String> inProgress, Executor executor, ScheduledExecutorService timer) {
+        CompletableFuture<Void> future = destroyed.get(id);
+        if (future != null) {
+            return future;
+        }
+        inProgress.add(id);
+        List<CompletableFuture<Void>> dependents = new ArrayList<>();
+        for (String dependent : graph.getDependents(id)) {
+            if (!inProgress.contains(dependent)) {
+                dependents.add(scheduleDestroy(dependent, graph, beanDefinitions, beans, destroyed, inProgress, executor, timer));
+            }
+        }
+        inProgress.remove(id);
+
+        // a failed dependent does not keep its dependencies alive
+        CompletableFuture<Void> dependentsDestroyed = CompletableFuture.allOf(dependents.toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null);
+        Runnable destroyAction = getDestroyAction(beanDefinitions.get(id), beans.get(id));
+        future = destroyAction == null
+                ? dependentsDestroyed : dependentsDestroyed.thenCompose(ignored -> destroyBean(id, destroyAction, executor, timer));
+        destroyed.put(id, future);
+        return future;
+    }
+
+    // prototypes belong to whoever asked for them, except the idle ones in a pool; lazy singletons are destroyed
+    // only if they were ever created, objects of other scopes are left to the scope
+    private Runnable getDestroyAction(BeanDefinition beanDefinition, Bean bean) {
+        if (bean instanceof DeferredBean) {
+            DeferredBean deferredBean = (DeferredBean) bean;
+            if (deferredBean.getPool() != null) {
+                return deferredBean.getPool()::clear;
+            }
+            if (!deferredBean.getBeanDefinition().isSingleton() || !deferredBean.isInitialized()) {
+                return null;
+            }
+        }
+        Object beanObject = bean == null ? null : bean.getValue();
+        if (beanObject == null || (beanDefinition.getDestroyMethod() == null && !(getDestroyTarget(beanObject) instanceof AutoCloseable))) {
+            return null;
+        }
+        return () -> destroyObject(beanDefinition, beanObject);
+    }
+
+    private CompletableFuture<Void> destroyBean(String id, Runnable destroyAction, Executor executor,
+                                                ScheduledExecutorService timer) {
+        CompletableFuture<Void> destroyed = CompletableFuture.runAsync(() -> {
+            long start = listener == null ? 0 : System.nanoTime();
+            destroyAction.run();
+            onBeanStep(id, BeanStep.DESTROY, null, start);
+        }, executor);
+        Duration timeout = settings.getDestroyTimeout();
+        ScheduledFuture<?> timeoutTask = timer.schedule(() -> destroyed.completeExceptionally(
+                new BeanDestructionException("Bean " + id + " was not destroyed within " + timeout.toMillis() + " ms")),
+                timeout.toNanos(), TimeUnit.NANOSECONDS);
+        destroyed.whenComplete((ignored, e) -> timeoutTask.cancel(false));
+        return destroyed;
+    }
+
+    void destroyObject(BeanDefinition beanDefinition, Object beanObject) {
+        Object target = getDestroyTarget(beanObject);
+        destroyTargets.remove(beanObject);
+        try {
+            if (beanDefinition.getDestroyMethod() != null) {
+                injectionPlans.getPlan(target.getClass()).getLifecycleMethod(beanDefinition.getDestroyMethod()).invoke(target);
+            } else if (target instanceof AutoCloseable) {
+                ((AutoCloseable) target).close();
+            }
+        } catch (InvocationTargetException e) {
+            throw new BeanDestructionException("Error destroying bean " + beanDefinition.getId(), e.getCause());
+        } catch (Exception e) {
+            throw new BeanDestructionException("Error destroying bean " + beanDefinition.getId(), e);
+        }
+    }
+
+    private Object getDestroyTarget(Object beanObject) {
+        Object target = destroyTargets.get(beanObject);
+        return target == null ? beanObject : target;
+    }
+
+    // changed, added and removed processors can affect every bean, so everything is rebuilt then
+    private Set<String> getChangedBeanIds(Map<String, BeanDefinition> currentDefinitions,
+                                                 Map<String, BeanDefinition> newDefinitions, Set<String> processorIds) {
+        Set<String> changedIds = new HashSet<>();
+        for (BeanDefinition beanDefinition : newDefinitions.values()) {
+            if (!beanDefinition.equals(currentDefinitions.get(beanDefinition.getId()))) {
+                changedIds.add(beanDefinition.getId());
+            }
+        }
+        for (String id : currentDefinitions.keySet()) {
+            if (!newDefinitions.containsKey(id)) {
+                changedIds.add(id);
+            }
+        }
+        for (String id : changedIds) {
+            if (processorIds.contains(id) || isProcessor(beans.get(id))) {
+                return new HashSet<>(newDefinitions.keySet());
+            }
+        }
+
+        DependencyGraph graph = new DependencyGraph(newDefinitions);
+        Set<String> rebuiltIds = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(changedIds);
+        while (!queue.isEmpty()) {
+            String id = queue.poll();
+            if (newDefinitions.containsKey(id) && rebuiltIds.add(id)) {
+                queue.addAll(graph.getDependents(id));
+            } else if (!newDefinitions.containsKey(id)) {
+                // removed beans are not rebuilt, but beans that referred to them must be
+                for (BeanDefinition beanDefinition : newDefinitions.values()) {
+                    if (getReferences(beanDefinition).contains(id)) {
+                        queue.add(beanDefinition.getId());
+                    }
+                }
+            }
+        }
+        return rebuiltIds;
+    }
+
+    // completes once the bean and every bean it refers to, directly or not, are wired and initialized
+    @Override
+    public CompletableFuture<Object> getBeanAsync(String beanId) {
+        if (beanTable != NOT_REFRESHED) {
+            CompletableFuture<Object> bean = new CompletableFuture<>();
+            try {
+                bean.complete(getBean(beanId));
+            } catch (RuntimeException e) {
+                bean.completeExceptionally(e);
+            }
+            return bean;
+        }
+        return scheduledBeans.thenCompose(beanFutures -> {
+            CompletableFuture<Bean> beanFuture = beanFutures.get(beanId);
+            if (beanFuture == null && parent != null) {
+                return parent.getBeanAsync(beanId);
+            }
+            if (beanFuture == null) {
+                CompletableFuture<Object> missing = new CompletableFuture<>();
+                missing.completeExceptionally(new NoSuchBeanDefinitionException(beanId, null, null));
+                return missing;
+            }
+            return beanFuture.thenApply(Bean::getValue);
+        });
     }
 
     @Override
     public Object getBean(String beanId) {
-        Bean bean = beans.get(beanId);
-        if (bean == null) {
-            throw new NoSuchBeanDefinitionException(beanId, null, null);
+        if (listener == null) {
+            return lookupBean(beanId);
+        }
+        long start = System.nanoTime();
+        boolean found = false;
+        try {
+            Object bean = lookupBean(beanId);
+            found = true;
+            return bean;
+        } finally {
+            listener.onLookup(LookupKind.BY_ID, found, System.nanoTime() - start);
         }
-        return bean.getValue();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T getBean(Class<T> clazz) {
-        List<Bean> foundBeans = new ArrayList<>(1);
-        for (Bean bean: beans.values()) {
-            if (bean.getValue() != null && bean.getValue().getClass() == clazz) {
-                foundBeans.add(bean);
+        if (listener == null) {
+            return lookupBean(clazz);
+        }
+        long start = System.nanoTime();
+        boolean found = false;
+        try {
+            T bean = lookupBean(clazz);
+            found = true;
+            return bean;
+        } finally {
+            listener.onLookup(LookupKind.BY_TYPE, found, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public <T> T getBean(String id, Class<T> clazz) {
+        if (listener == null) {
+            return lookupBean(id, clazz);
+        }
+        long start = System.nanoTime();
+        boolean found = false;
+        try {
+            T bean = lookupBean(id, clazz);
+            found = true;
+            return bean;
+        } finally {
+            listener.onLookup(LookupKind.BY_ID_AND_TYPE, found, System.nanoTime() - start);
+        }
+    }
+
+    private Object lookupBean(String beanId) {
+        BeanTable table = beanTable;
+        Object bean = table.get(beanId);
+        if (bean == null) {
+            checkRefreshed(table);
+            if (parent != null) {
+                return parent.getBean(beanId);
             }
+            throw new NoSuchBeanDefinitionException(beanId, null, null);
         }
-        if (foundBeans.size() == 0) {
+        return BeanTable.resolve(bean);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookupBean(Class<T> clazz) {
+        BeanTable table = beanTable;
+        Object bean = table.getByType(clazz);
+        if (bean == null) {
+            checkRefreshed(table);
+            if (parent != null) {
+                return parent.getBean(clazz);
+            }
             throw new NoSuchBeanDefinitionException(null, clazz.getName(), null);
         }
-        if (foundBeans.size() > 1) {
+        if (bean == BeanTable.NOT_UNIQUE) {
             throw new NoUniqueBeanOfTypeException("More than one Bean of class " + clazz.getName());
         }
-        return (T) foundBeans.get(0).getValue();
+        return (T) BeanTable.resolve(bean);
     }
 
-    @Override
     @SuppressWarnings("unchecked")
-    public <T> T getBean(String id, Class<T> clazz) {
-        Bean bean = beans.get(id);
+    private <T> T lookupBean(String id, Class<T> clazz) {
+        BeanTable table = beanTable;
+        Object bean = table.get(id);
         if (bean == null) {
+            checkRefreshed(table);
+            if (parent != null) {
+                return parent.getBean(id, clazz);
+            }
             throw new NoSuchBeanDefinitionException(id, clazz.getName(), null);
         }
-        if (bean.getValue().getClass() != clazz) {
-            throw new NoSuchBeanDefinitionException(id, clazz.getName(), bean.getValue().getClass().getName());
+        Class<?> beanClass = BeanTable.getType(bean);
+        if (beanClass != clazz) {
+            throw new NoSuchBeanDefinitionException(id, clazz.getName(), beanClass.getName());
+        }
+        return (T) BeanTable.resolve(bean);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getBeansOfType(Class<T> clazz) {
+        long start = listener == null ? 0 : System.nanoTime();
+        BeanTable table = beanTable;
+        checkRefreshed(table);
+        Map<String, T> beans = (Map<String, T>) table.getBeansOfType(clazz);
+        if (listener != null) {
+            listener.onLookup(LookupKind.ALL_OF_TYPE, !beans.isEmpty(), System.nanoTime() - start);
+        }
+        return beans;
+    }
+
+    @Override
+    public <T> BeanHandle<T> getBeanHandle(String id, Class<T> clazz) {
+        return new BoundBeanHandle<>(this, id, clazz);
+    }
+
+    // the same checks as getBean(String, Class), done once per snapshot for a handle
+    @SuppressWarnings("unchecked")
+    <T> BoundBeanHandle.Binding<T> bind(String id, Class<T> clazz) {
+        BeanTable table = beanTable;
+        Object bean = table.get(id);
+        if (bean == null) {
+            checkRefreshed(table);
+            if (parent == null) {
+                throw new NoSuchBeanDefinitionException(id, clazz.getName(), null);
+            }
+            return new BoundBeanHandle.Binding<>(table, null, parent.getBeanHandle(id, clazz));
+        }
+        Class<?> beanClass = BeanTable.getType(bean);
+        if (beanClass != clazz) {
+            throw new NoSuchBeanDefinitionException(id, clazz.getName(), beanClass.getName());
+        }
+        if (bean instanceof DeferredBean) {
+            DeferredBean deferredBean = (DeferredBean) bean;
+            return new BoundBeanHandle.Binding<>(table, null, () -> (T) deferredBean.getValue());
+        }
+        return new BoundBeanHandle.Binding<>(table, (T) bean, null);
+    }
+
+    BeanTable getBeanTable() {
+        return beanTable;
+    }
+
+    private static void checkRefreshed(BeanTable table) {
+        if (table == CLOSED) {
+            throw new IllegalStateException("Context is closed");
+        }
+        if (table == NOT_REFRESHED) {
+            throw new IllegalStateException("Context is not refreshed yet");
         }
-        return (T) bean.getValue();
+    }
+
+    @Override
+    public ApplicationContext getParent() {
+        return parent;
+    }
+
+    // the pool behind a pooled prototype, getBean always creates a new object instead
+    public BeanPool getBeanPool(String beanId) {
+        BeanTable table = beanTable;
+        Object bean = table.get(beanId);
+        if (bean == null) {
+            checkRefreshed(table);
+            throw new NoSuchBeanDefinitionException(beanId, null, null);
+        }
+        if (!(bean instanceof DeferredBean) || ((DeferredBean) bean).getPool() == null) {
+            throw new IllegalArgumentException("Bean " + beanId + " is not pooled");
+        }
+        return ((DeferredBean) bean).getPool();
     }
 
     @Override
     public List<String> getBeanNames() {
-        ArrayList<String> beanNames = new ArrayList<>(beans.size());
-        beanNames.addAll(beans.keySet());
-        return beanNames;
+        return new ArrayList<>(beanTable.getBeanNames());
+    }
+
+    @Override
+    public boolean containsBean(String id) {
+        return beanTable.get(id) != null || (parent != null && parent.containsBean(id));
+    }
+
+    // beans that already exist are passed in createdBeans, they are only referred to
+    private Map<String, Bean> createBeansSerially(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> createdBeans,
+                                                  List<List<String>> cachedLevels) {
+        long start = listener == null ? 0 : System.nanoTime();
+        Map<String, Bean> beans = new HashMap<>(beanDefinitions.size() + createdBeans.size());
+        beans.putAll(createdBeans);
+        createBeans(beanDefinitions, beans);
+        start = onPhase(RefreshPhase.CREATE_BEANS, start);
+        injectValueDependencies(beanDefinitions, beans);
+        start = onPhase(RefreshPhase.INJECT_VALUES, start);
+        List<List<String>> levels = getLevels(beanDefinitions, cachedLevels);
+        if (levels != null) {
+            injectRefsAndInitialize(beanDefinitions, beans, levels);
+        } else {
+            // setter refs form a cycle, so beans cannot wait for the beans they refer to be initialized;
+            // refs injected here point to the raw objects, not to the post processed ones
+            injectRefDependencies(beanDefinitions, beans);
+            start = onPhase(RefreshPhase.INJECT_REFS, start);
+            initializeBeans(beanDefinitions, beans);
+            onPhase(RefreshPhase.INITIALIZE, start);
+        }
+        return beans;
     }
 
     Map<String, Bean> createBeans(Map<String, BeanDefinition> beanDefinitionMap) {
         Map<String, Bean> beanNamesToBeans = new HashMap<>(beanDefinitionMap.size());
+        createBeans(beanDefinitionMap, beanNamesToBeans);
+        return beanNamesToBeans;
+    }
+
+    private void createBeans(Map<String, BeanDefinition> beanDefinitionMap, Map<String, Bean> beanNamesToBeans) {
         for (BeanDefinition beanDefinition : beanDefinitionMap.values()) {
-            try {
-                Object beanObject = Class.forName(beanDefinition.getClassName()).getConstructor().newInstance();
-                Bean bean = new Bean(beanDefinition.getId(), beanObject);
-                beanNamesToBeans.put(bean.getId(), bean);
-            } catch (Exception e) {
-                throw new BeanInstantiationException("Error instantiating bean", e);
+            if (isDeferred(beanDefinition)) {
+                beanNamesToBeans.put(beanDefinition.getId(), createDeferredBean(beanDefinition, beanNamesToBeans));
             }
         }
-        return beanNamesToBeans;
+        Set<String> beansInCreation = new LinkedHashSet<>();
+        Set<String> preparedDeferredBeans = new HashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitionMap.values()) {
+            createBean(beanDefinition.getId(), beanDefinitionMap, beanNamesToBeans, beansInCreation, preparedDeferredBeans);
+        }
+    }
+
+    // beans passed to a constructor are created first
+    private void createBean(String id, Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans,
+                            Set<String> beansInCreation, Set<String> preparedDeferredBeans) {
+        BeanDefinition beanDefinition = beanDefinitions.get(id);
+        if (beanDefinition == null || beans.containsKey(id)) {
+            return;
+        }
+        if (!beansInCreation.add(id)) {
+            throw new CircularReferenceException("Circular constructor reference between beans: "
+                    + String.join(" -> ", beansInCreation) + " -> " + id);
+        }
+        for (ConstructorArgument argument : beanDefinition.getConstructorArguments()) {
+            if (argument.isRef()) {
+                prepareReference(argument.getRef(), beanDefinitions, beans, beansInCreation, preparedDeferredBeans);
+            }
+        }
+        beans.put(id, createBean(beanDefinition, beans));
+        beansInCreation.remove(id);
+    }
+
+    // a deferred bean is wired when it is first used, so everything it refers to has to be created by then
+    private void prepareReference(String ref, Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans,
+                                  Set<String> beansInCreation, Set<String> preparedDeferredBeans) {
+        BeanDefinition beanDefinition = beanDefinitions.get(ref);
+        if (beanDefinition == null || !isDeferred(beanDefinition)) {
+            createBean(ref, beanDefinitions, beans, beansInCreation, preparedDeferredBeans);
+            return;
+        }
+        if (preparedDeferredBeans.add(ref)) {
+            for (String dependency : getReferences(beanDefinition)) {
+                prepareReference(dependency, beanDefinitions, beans, beansInCreation, preparedDeferredBeans);
+            }
+        }
+    }
+
+    private static List<String> getReferences(BeanDefinition beanDefinition) {
+        List<String> references = new ArrayList<>(beanDefinition.getRefDependencies().values());
+        for (ConstructorArgument argument : beanDefinition.getConstructorArguments()) {
+            if (argument.isRef()) {
+                references.add(argument.getRef());
+            }
+        }
+        return references;
     }
 
     void injectValueDependencies(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
         for (Bean bean : beans.values()) {
             BeanDefinition beanDefinition = beanDefinitions.get(bean.getId());
-            if (beanDefinition != null) { // todo it's possible but weird
-                for (Map.Entry<String, String> property : beanDefinition.getValueDependencies().entrySet()) {
-                    try {
-                        final Object beanObject = bean.getValue();
-                        Method setter = getPropertySetter(beanObject, property.getKey());
-                        injectValue(beanObject, setter, property.getValue());
-                    } catch (Exception e) {
-                        throw new ProcessPostConstructException("Error setting property", e);
-                    }
-                }
+            if (beanDefinition != null && !(bean instanceof DeferredBean)) { // todo it's possible but weird
+                injectValueDependencies(beanDefinition, bean);
             }
         }
     }
@@ -113,62 +676,528 @@ public class GenericApplicationContext implements ApplicationContext {
     void injectRefDependencies(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
         for (Bean bean : beans.values()) {
             BeanDefinition beanDefinition = beanDefinitions.get(bean.getId());
-            if (beanDefinition != null) { // todo it's possible but weird
-                for (Map.Entry<String, String> property : beanDefinition.getRefDependencies().entrySet()) {
-                    try {
-                        final Object beanObject = bean.getValue();
-                        Object dependency = beans.get(property.getValue()).getValue();
-                        injectDependency(beanObject, getSetterName(property.getKey()), dependency);
-                    } catch (Exception e) {
-                        throw new ProcessPostConstructException("Error setting property", e);
+            if (beanDefinition != null && !(bean instanceof DeferredBean)) { // todo it's possible but weird
+                injectRefDependencies(beanDefinition, bean, beans);
+            }
+        }
+    }
+
+    void initializeBeans(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        for (Bean bean : beans.values()) {
+            BeanDefinition beanDefinition = beanDefinitions.get(bean.getId());
+            if (beanDefinition != null && !(bean instanceof DeferredBean)) {
+                initializeBean(beanDefinition, bean);
+            }
+        }
+    }
+
+    // level by level like the parallel refresh, a bean is initialized before its refs are injected into the next level,
+    // so both refresh modes inject the post processed objects
+    private void injectRefsAndInitialize(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans,
+                                         List<List<String>> levels) {
+        long injectNanos = 0;
+        long initializeNanos = 0;
+        for (List<String> level : levels) {
+            for (String id : level) {
+                Bean bean = beans.get(id);
+                BeanDefinition beanDefinition = beanDefinitions.get(id);
+                if (beanDefinition == null || bean instanceof DeferredBean) {
+                    continue;
+                }
+                long start = listener == null ? 0 : System.nanoTime();
+                injectRefDependencies(beanDefinition, bean, beans);
+                long injected = listener == null ? 0 : System.nanoTime();
+                initializeBean(beanDefinition, bean);
+                if (listener != null) {
+                    injectNanos += injected - start;
+                    initializeNanos += System.nanoTime() - injected;
+                }
+            }
+        }
+        if (listener != null) {
+            listener.onPhase(RefreshPhase.INJECT_REFS, injectNanos);
+            listener.onPhase(RefreshPhase.INITIALIZE, initializeNanos);
+        }
+    }
+
+    // null when setter refs form a cycle and the beans cannot be ordered
+    private static List<List<String>> getLevels(Map<String, BeanDefinition> beanDefinitions, List<List<String>> cachedLevels) {
+        if (cachedLevels != null) {
+            return cachedLevels;
+        }
+        try {
+            return new DependencyGraph(beanDefinitions).getLevels();
+        } catch (CircularReferenceException e) {
+            return null;
+        }
+    }
+
+    Map<String, Bean> createBeansInParallel(Map<String, BeanDefinition> beanDefinitions, Executor executor) {
+        return join(createBeansAsync(beanDefinitions, executor, Collections.emptyMap(), null));
+    }
+
+    // every bean is scheduled as soon as the beans it refers to are ready, there are no barriers between levels
+    // levels are computed from the definitions unless the startup cache has them already
+    private CompletableFuture<Map<String, Bean>> createBeansAsync(Map<String, BeanDefinition> beanDefinitions, Executor executor,
+                                                                 Map<String, Bean> createdBeans, List<List<String>> levels) {
+        Map<String, Bean> beanNamesToBeans = new ConcurrentHashMap<>(beanDefinitions.size() + createdBeans.size());
+        beanNamesToBeans.putAll(createdBeans);
+        Map<String, CompletableFuture<Bean>> beanFutures = new HashMap<>(beanNamesToBeans.size() + beanDefinitions.size());
+        for (Bean bean : createdBeans.values()) {
+            beanFutures.put(bean.getId(), CompletableFuture.completedFuture(bean));
+        }
+
+        DependencyGraph graph = new DependencyGraph(beanDefinitions);
+        for (List<String> level : levels == null ? graph.getLevels() : levels) {
+            for (String id : level) {
+                BeanDefinition beanDefinition = beanDefinitions.get(id);
+                CompletableFuture<Void> dependenciesReady = getDependenciesReady(graph.getDependencies(id), beanFutures);
+                if (isDeferred(beanDefinition)) {
+                    // created on demand, but only after its own dependencies are wired
+                    DeferredBean bean = createDeferredBean(beanDefinition, beanNamesToBeans);
+                    beanNamesToBeans.put(id, bean);
+                    beanFutures.put(id, dependenciesReady.thenApply(ignored -> bean));
+                    continue;
+                }
+                beanFutures.put(id, dependenciesReady.thenApplyAsync(ignored -> {
+                    Bean bean = createBean(beanDefinition, beanNamesToBeans);
+                    wireBean(beanDefinition, bean, beanNamesToBeans);
+                    beanNamesToBeans.put(id, bean);
+                    return bean;
+                }, executor));
+            }
+        }
+        scheduledBeans.complete(beanFutures);
+
+        Map<String, CompletableFuture<Bean>> sortedFutures = new TreeMap<>(beanFutures);
+        return CompletableFuture.allOf(sortedFutures.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, e) -> {
+                    if (e != null) {
+                        throw getFailure(sortedFutures.values());
                     }
+                    return beanNamesToBeans;
+                });
+    }
+
+    private static CompletableFuture<Void> getDependenciesReady(Set<String> dependencies,
+                                                               Map<String, CompletableFuture<Bean>> beanFutures) {
+        if (dependencies.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Bean>> futures = new ArrayList<>(dependencies.size());
+        for (String dependency : dependencies) {
+            futures.add(beanFutures.get(dependency));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    // futures are in bean id order, so the reported failure does not depend on scheduling;
+    // dependents of a failed bean fail with the same cause, which is reported once
+    private static RuntimeException getFailure(Collection<? extends CompletableFuture<?>> futures) {
+        RuntimeException failure = null;
+        Set<Throwable> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CompletableFuture<?> future : futures) {
+            if (!future.isCompletedExceptionally()) {
+                continue;
+            }
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (!reported.add(e.getCause())) {
+                    continue;
+                }
+                RuntimeException cause = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new BeanInstantiationException("Error instantiating bean", e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
                 }
             }
         }
+        return failure;
     }
 
-    private Method getPropertySetter(Object beanObject, String propertyName) throws NoSuchMethodException {
-        final String setterName = getSetterName(propertyName);
+    private static <T> T join(CompletableFuture<T> future) {
         try {
-            return beanObject.getClass().getDeclaredMethod(setterName, String.class);
-        } catch (NoSuchMethodException ignored) {}
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    Bean createBean(BeanDefinition beanDefinition) {
+        return createBean(beanDefinition, Collections.emptyMap());
+    }
+
+    // refs passed to the constructor must already be in beans
+    Bean createBean(BeanDefinition beanDefinition, Map<String, Bean> beans) {
         try {
-            return beanObject.getClass().getDeclaredMethod(setterName, Integer.TYPE);
-        } catch (NoSuchMethodException ignored) {}
+            long start = listener == null ? 0 : System.nanoTime();
+            Class<?> beanClass = Class.forName(beanDefinition.getClassName());
+            start = onBeanStep(beanDefinition.getId(), BeanStep.CLASS_LOAD, null, start);
+            InjectionPlan plan = injectionPlans.getPlan(beanClass);
+            List<ConstructorArgument> arguments = beanDefinition.getConstructorArguments();
+            Object beanObject;
+            if (arguments.isEmpty()) {
+                beanObject = plan.newInstance();
+            } else {
+                Object[] refs = new Object[arguments.size()];
+                for (int i = 0; i < refs.length; i++) {
+                    if (arguments.get(i).isRef()) {
+                        refs[i] = resolveReference(arguments.get(i).getRef(), beans);
+                    }
+                }
+                beanObject = plan.getConstructorPlan(arguments, refs).newInstance(arguments, refs);
+            }
+            onBeanStep(beanDefinition.getId(), BeanStep.CONSTRUCT, null, start);
+            return new Bean(beanDefinition.getId(), beanObject);
+        } catch (Exception e) {
+            throw new BeanInstantiationException("Error instantiating bean", e);
+        }
+    }
+
+    DeferredBean createDeferredBean(BeanDefinition beanDefinition, Map<String, Bean> beans) {
         try {
-            return beanObject.getClass().getDeclaredMethod(setterName, Double.TYPE);
-        } catch (NoSuchMethodException ignored) {}
+            Class<?> beanClass = Class.forName(beanDefinition.getClassName());
+            return new DeferredBean(beanDefinition, beanClass, this, beans, creationLock, getScope(beanDefinition));
+        } catch (BeanInstantiationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BeanInstantiationException("Error instantiating bean", e);
+        }
+    }
+
+    void wireBean(BeanDefinition beanDefinition, Bean bean, Map<String, Bean> beans) {
+        injectValueDependencies(beanDefinition, bean);
+        injectRefDependencies(beanDefinition, bean, beans);
+        initializeBean(beanDefinition, bean);
+    }
+
+    void initializeBean(BeanDefinition beanDefinition, Bean bean) {
         try {
-            return beanObject.getClass().getDeclaredMethod(setterName, Boolean.TYPE);
-        } catch (NoSuchMethodException ignored) {}
-        throw new NoSuchMethodException();
+            long start = listener == null ? 0 : System.nanoTime();
+            Object beanObject = bean.getValue();
+            InjectionPlan plan = injectionPlans.getPlan(beanObject.getClass());
+            if (beanDefinition.getDestroyMethod() != null) {
+                plan.getLifecycleMethod(beanDefinition.getDestroyMethod());
+            }
+            Object processed = postProcessors.initialize(beanObject, bean.getId(), plan, beanDefinition.getInitMethod());
+            if (processed != beanObject && (beanDefinition.isSingleton() || beanDefinition.isPooled())
+                    && (beanDefinition.getDestroyMethod() != null || beanObject instanceof AutoCloseable)) {
+                destroyTargets.put(processed, beanObject);
+            }
+            bean.setValue(processed);
+            onBeanStep(bean.getId(), BeanStep.INITIALIZE, null, start);
+        } catch (ProcessPostConstructException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ProcessPostConstructException("Error initializing bean " + bean.getId(), e);
+        }
     }
 
-    private String getSetterName(String fieldName) {
-        return "set" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+    // reads and post processes the definitions, processor beans are created on the way
+    private Map<String, BeanDefinition> prepareBeanDefinitions(BeanDefinitionReader definitionReader,
+                                                               Map<String, Bean> processorBeans, long start) {
+        Map<String, BeanDefinition> beanDefinitions = readBeanDefinitions(definitionReader);
+        start = onPhase(RefreshPhase.READ_DEFINITIONS, start);
+        postProcessBeanFactory(beanDefinitions, processorBeans);
+        registerBeanPostProcessors(beanDefinitions, processorBeans);
+        validateReferences(beanDefinitions);
+        onPhase(RefreshPhase.POST_PROCESS_DEFINITIONS, start);
+        return beanDefinitions;
+    }
+
+    // every ref has to be defined here or in the parent, reported before any regular bean is created
+    private void validateReferences(Map<String, BeanDefinition> beanDefinitions) {
+        List<DependencyReport.MissingReference> missingReferences = new ArrayList<>();
+        for (DependencyReport.MissingReference missingReference : DependencyReport.findMissingReferences(beanDefinitions)) {
+            if (parent == null || !parent.containsBean(missingReference.getRef())) {
+                missingReferences.add(missingReference);
+            }
+        }
+        if (!missingReferences.isEmpty()) {
+            String message = missingReferences.get(0).toString();
+            if (missingReferences.size() > 1) {
+                message += " and " + (missingReferences.size() - 1) + " more undefined refs";
+            }
+            throw new NoSuchBeanDefinitionException(message);
+        }
+    }
+
+    // a valid startup cache stands in for the reader, otherwise a copy of what the reader returned is kept for storing one
+    private Map<String, BeanDefinition> readBeanDefinitions(BeanDefinitionReader definitionReader) {
+        cachedLevels = null;
+        pendingSnapshot = null;
+        List<Resource> resources = settings.getStartupCache() == null ? null : definitionReader.getResources();
+        if (resources == null) {
+            return definitionReader.getBeanDefinition();
+        }
+        StartupCache startupCache = new StartupCache(settings.getStartupCache());
+        byte[] key;
+        try {
+            key = StartupCache.getKey(definitionReader.getClass().getName(), resources, System.getProperty("java.class.path"));
+        } catch (IOException e) {
+            // the reader reports unreadable files itself
+            return definitionReader.getBeanDefinition();
+        }
+        StartupCache.Snapshot snapshot = startupCache.load(key);
+        if (snapshot != null) {
+            injectionPlans.setKnownSetters(snapshot.getSetters());
+            cachedLevels = snapshot.getLevels();
+            return snapshot.getBeanDefinitions();
+        }
+        Map<String, BeanDefinition> beanDefinitions = definitionReader.getBeanDefinition();
+        pendingSnapshot = new PendingSnapshot(startupCache, key, compact(beanDefinitions));
+        return beanDefinitions;
+    }
+
+    // cached levels describe the definitions as read, processors may have changed them since
+    private List<List<String>> getCachedLevels(Map<String, Bean> processorBeans) {
+        List<List<String>> levels = cachedLevels;
+        cachedLevels = null;
+        if (!processorBeans.isEmpty() || !settings.getBeanFactoryPostProcessors().isEmpty()) {
+            return null;
+        }
+        return levels;
+    }
+
+    // runs once the refresh succeeded, so only definitions that could be wired are cached
+    private void storeStartupCache() {
+        PendingSnapshot pending = pendingSnapshot;
+        pendingSnapshot = null;
+        if (pending == null) {
+            return;
+        }
+        List<List<String>> levels;
+        try {
+            levels = new DependencyGraph(pending.beanDefinitions).getLevels();
+        } catch (CircularReferenceException e) {
+            levels = null;
+        }
+        try {
+            pending.startupCache.store(pending.key,
+                    new StartupCache.Snapshot(pending.beanDefinitions, levels, injectionPlans.getSetterSignatures()));
+        } catch (IOException e) {
+            // the cache only speeds up the next start, a read only disk must not fail this one
+        }
+    }
+
+    private static class PendingSnapshot {
+        private final StartupCache startupCache;
+        private final byte[] key;
+        private final Map<String, BeanDefinition> beanDefinitions;
+
+        PendingSnapshot(StartupCache startupCache, byte[] key, Map<String, BeanDefinition> beanDefinitions) {
+            this.startupCache = startupCache;
+            this.key = key;
+            this.beanDefinitions = beanDefinitions;
+        }
+    }
+
+    private static boolean isProcessor(Bean bean) {
+        if (bean == null || bean instanceof DeferredBean) {
+            return false;
+        }
+        return bean.getValue() instanceof BeanFactoryPostProcessor || bean.getValue() instanceof BeanPostProcessor;
+    }
+
+    private static Map<String, BeanDefinition> withoutProcessors(Map<String, BeanDefinition> beanDefinitions,
+                                                                 Map<String, Bean> processorBeans) {
+        if (processorBeans.isEmpty()) {
+            return beanDefinitions;
+        }
+        Map<String, BeanDefinition> regularDefinitions = new HashMap<>(beanDefinitions);
+        regularDefinitions.keySet().removeAll(processorBeans.keySet());
+        return regularDefinitions;
+    }
+
+    private Executor getExecutor() {
+        return settings.getExecutor() == null ? ForkJoinPool.commonPool() : settings.getExecutor();
+    }
+
+    private void postProcessBeanFactory(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> processorBeans) {
+        List<BeanFactoryPostProcessor> processors = new ArrayList<>(settings.getBeanFactoryPostProcessors());
+        processors.addAll(createProcessorBeans(beanDefinitions, BeanFactoryPostProcessor.class, processorBeans));
+        processors.sort(Ordered.COMPARATOR);
+        if (!processors.isEmpty()) {
+            // processors change definitions in place, publish compacts them again
+            for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+                beanDefinition.makeMutable();
+            }
+        }
+        for (BeanFactoryPostProcessor processor : processors) {
+            try {
+                processor.postProcessBeanFactory(beanDefinitions);
+            } catch (RuntimeException e) {
+                throw new PostProcessBeanFactoryException("Error post processing bean definitions with "
+                        + processor.getClass().getName(), e);
+            }
+        }
+    }
+
+    private void registerBeanPostProcessors(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> processorBeans) {
+        List<BeanPostProcessor> processors = createProcessorBeans(beanDefinitions, BeanPostProcessor.class, processorBeans);
+        if (!processors.isEmpty()) {
+            processors.addAll(0, settings.getBeanPostProcessors());
+            postProcessors = new PostProcessorPipeline(processors);
+        }
+    }
+
+    // definitions are visited in id order so processors with equal order run in a stable sequence
+    private <T> List<T> createProcessorBeans(Map<String, BeanDefinition> beanDefinitions, Class<T> processorType,
+                                             Map<String, Bean> processorBeans) {
+        List<T> processors = new ArrayList<>();
+        for (BeanDefinition beanDefinition : new TreeMap<>(beanDefinitions).values()) {
+            Bean bean = processorBeans.get(beanDefinition.getId());
+            if (bean == null) {
+                Class<?> beanClass;
+                try {
+                    beanClass = Class.forName(beanDefinition.getClassName());
+                } catch (ClassNotFoundException e) {
+                    throw new BeanInstantiationException("Error instantiating bean", e);
+                }
+                if (!BeanFactoryPostProcessor.class.isAssignableFrom(beanClass)
+                        && !BeanPostProcessor.class.isAssignableFrom(beanClass)) {
+                    continue;
+                }
+                if (!getReferences(beanDefinition).isEmpty()) {
+                    throw new PostProcessBeanFactoryException("Post processor bean " + beanDefinition.getId()
+                            + " can not have ref dependencies");
+                }
+                bean = createBean(beanDefinition);
+                injectValueDependencies(beanDefinition, bean);
+                processorBeans.put(bean.getId(), bean);
+            }
+            if (processorType.isInstance(bean.getValue())) {
+                processors.add(processorType.cast(bean.getValue()));
+            }
+        }
+        return processors;
+    }
+
+    void injectValueDependencies(BeanDefinition beanDefinition, Bean bean) {
+        for (Map.Entry<String, String> property : beanDefinition.getValueDependencies().entrySet()) {
+            try {
+                long start = listener == null ? 0 : System.nanoTime();
+                final Object beanObject = bean.getValue();
+                PropertySetter setter = injectionPlans.getPlan(beanObject.getClass()).getValueSetter(property.getKey());
+                setter.injectValue(beanObject, property.getValue());
+                onBeanStep(bean.getId(), BeanStep.INJECT_VALUE, property.getKey(), start);
+            } catch (Exception e) {
+                throw new ProcessPostConstructException("Error setting property", e);
+            }
+        }
+    }
+
+    void injectRefDependencies(BeanDefinition beanDefinition, Bean bean, Map<String, Bean> beans) {
+        for (Map.Entry<String, String> property : beanDefinition.getRefDependencies().entrySet()) {
+            try {
+                long start = listener == null ? 0 : System.nanoTime();
+                final Object beanObject = bean.getValue();
+                Object dependency = resolveReference(property.getValue(), beans);
+                PropertySetter setter = injectionPlans.getPlan(beanObject.getClass()).getRefSetter(property.getKey());
+                setter.injectDependency(beanObject, dependency);
+                onBeanStep(bean.getId(), BeanStep.INJECT_REF, property.getKey(), start);
+            } catch (Exception e) {
+                throw new ProcessPostConstructException("Error setting property", e);
+            }
+        }
+    }
+
+    // refs that are not defined in this context are looked up in the parent
+    private Object resolveReference(String ref, Map<String, Bean> beans) {
+        Bean bean = beans.get(ref);
+        if (bean == null) {
+            if (parent == null) {
+                throw new NoSuchBeanDefinitionException("No bean " + ref + " is defined to be injected");
+            }
+            return parent.getBean(ref);
+        }
+        if (bean instanceof DeferredBean && ((DeferredBean) bean).isProxied()) {
+            return ((DeferredBean) bean).getProxy();
+        }
+        return bean.getValue();
     }
 
     void injectValue(Object object, Method classMethod, String propertyValue) throws ReflectiveOperationException {
-        Class<?> parameterType = classMethod.getParameterTypes()[0];
-        if (parameterType == String.class) {
-            classMethod.invoke(object, propertyValue);
-        } else if (parameterType == Integer.TYPE) {
-            classMethod.invoke(object, Integer.parseInt(propertyValue));
-        } else if (parameterType == Double.TYPE) {
-            classMethod.invoke(object, Double.parseDouble(propertyValue));
+        Converter<String, Object> converter = settings.getConversionService().getLiteralConverter(classMethod.getGenericParameterTypes()[0]);
+        new PropertySetter(classMethod, instantiationStrategy.getSetter(classMethod), converter).injectValue(object, propertyValue);
+    }
+
+    private long onPhase(RefreshPhase phase, long start) {
+        if (listener == null) {
+            return 0;
         }
+        long end = System.nanoTime();
+        listener.onPhase(phase, end - start);
+        return end;
     }
 
-    void injectDependency(Object object, String setterName, Object dependencyObject) throws ReflectiveOperationException {
-        for (Method declaredMethod : object.getClass().getDeclaredMethods()) {
-            if (declaredMethod.getName().equals(setterName)) {
-                declaredMethod.invoke(object, dependencyObject);
-                return;
+    private long onBeanStep(String beanId, BeanStep step, String propertyName, long start) {
+        if (listener == null) {
+            return 0;
+        }
+        long end = System.nanoTime();
+        listener.onBeanStep(beanId, step, propertyName, end - start);
+        return end;
+    }
+
+    private boolean isDeferred(BeanDefinition beanDefinition) {
+        return !beanDefinition.isSingleton() || beanDefinition.isLazyInit();
+    }
+
+    // null for singletons and prototypes
+    private Scope getScope(BeanDefinition beanDefinition) {
+        if (beanDefinition.isPooled() && !beanDefinition.isPrototype()) {
+            throw new BeanInstantiationException("Only prototype beans can be pooled, bean " + beanDefinition.getId()
+                    + " is " + beanDefinition.getScope(), null);
+        }
+        if (beanDefinition.isSingleton() || beanDefinition.isPrototype()) {
+            return null;
+        }
+        Scope scope = settings.getScopes().get(beanDefinition.getScope());
+        if (scope == null) {
+            throw new BeanInstantiationException("No scope " + beanDefinition.getScope() + " registered for bean "
+                    + beanDefinition.getId(), null);
+        }
+        return scope;
+    }
+
+    private void publish(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        Map<String, BeanDefinition> retainedDefinitions = compact(beanDefinitions);
+        boolean published = false;
+        synchronized (reloadLock) {
+            if (beanTable != CLOSED) {
+                this.beanDefinitions = retainedDefinitions;
+                this.beans = beans;
+                setBeans(beans);
+                published = true;
             }
         }
+        if (published) {
+            storeStartupCache();
+        } else {
+            // closed while the refresh was running
+            destroyBeans(beanDefinitions, beans);
+        }
+    }
+
+    // the definitions are only kept for reload and close, so flat copies sharing their strings are held
+    // instead of whatever the reader produced; readers may also hand out the same map on every call
+    private static Map<String, BeanDefinition> compact(Map<String, BeanDefinition> beanDefinitions) {
+        SymbolTable symbols = new SymbolTable();
+        Map<String, BeanDefinition> compactDefinitions = new HashMap<>(beanDefinitions.size() * 4 / 3 + 1);
+        for (Map.Entry<String, BeanDefinition> beanDefinition : beanDefinitions.entrySet()) {
+            compactDefinitions.put(beanDefinition.getKey(), beanDefinition.getValue().compact(symbols));
+        }
+        return compactDefinitions;
     }
 
     void setBeans(Map<String, Bean> beans) {
-        this.beans = beans;
+        this.beanTable = new BeanTable(beans);
     }
 }
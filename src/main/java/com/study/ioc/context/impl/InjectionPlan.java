@@ -0,0 +1,302 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.InstantiationStrategy;
+import com.study.ioc.convert.ConversionService;
+import com.study.ioc.convert.Converter;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.reader.binary.StartupCache.SetterSignature;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+class InjectionPlan {
+    // preferred when a setter is overloaded, any other type the conversion service supports comes after these
+    private static final List<Class<?>> VALUE_TYPES = Arrays.asList(String.class, Integer.TYPE, Double.TYPE, Boolean.TYPE);
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : Arrays.asList(Boolean.TYPE, Byte.TYPE, Character.TYPE, Short.TYPE, Integer.TYPE,
+                Long.TYPE, Float.TYPE, Double.TYPE)) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private final Class<?> beanClass;
+    private final InstantiationStrategy instantiationStrategy;
+    private final ConversionService conversionService;
+    private volatile Supplier<Object> instantiator;
+    // scanned on first use only, setters known from the startup cache are looked up directly
+    private volatile Map<String, List<Method>> settersByName;
+    private final Map<String, SetterSignature> knownValueSetters = new HashMap<>();
+    private final Map<String, SetterSignature> knownRefSetters = new HashMap<>();
+    private final Map<String, PropertySetter> valueSetters = new ConcurrentHashMap<>();
+    private final Map<String, PropertySetter> refSetters = new ConcurrentHashMap<>();
+    private final Map<String, Method> lifecycleMethods = new ConcurrentHashMap<>();
+    // keyed by the arguments, 'v' for a value and 'r' followed by the class name for a ref
+    private final Map<String, ConstructorPlan> constructorPlans = new ConcurrentHashMap<>();
+
+    InjectionPlan(Class<?> beanClass, InstantiationStrategy instantiationStrategy, ConversionService conversionService) {
+        this(beanClass, instantiationStrategy, conversionService, Collections.emptyList());
+    }
+
+    InjectionPlan(Class<?> beanClass, InstantiationStrategy instantiationStrategy, ConversionService conversionService,
+                  List<SetterSignature> knownSetters) {
+        this.beanClass = beanClass;
+        this.instantiationStrategy = instantiationStrategy;
+        this.conversionService = conversionService;
+        for (SetterSignature setter : knownSetters) {
+            (setter.isRef() ? knownRefSetters : knownValueSetters).put(setter.getProperty(), setter);
+        }
+    }
+
+    Object newInstance() throws ReflectiveOperationException {
+        Supplier<Object> instantiator = this.instantiator;
+        if (instantiator == null) {
+            synchronized (this) {
+                instantiator = this.instantiator;
+                if (instantiator == null) {
+                    instantiator = instantiationStrategy.getInstantiator(beanClass);
+                    this.instantiator = instantiator;
+                }
+            }
+        }
+        return instantiator.get();
+    }
+
+    PropertySetter getValueSetter(String propertyName) throws ReflectiveOperationException {
+        PropertySetter setter = valueSetters.get(propertyName);
+        if (setter == null) {
+            // beans of one class are wired concurrently during a parallel refresh, spin each accessor once
+            synchronized (valueSetters) {
+                setter = valueSetters.get(propertyName);
+                if (setter == null) {
+                    Method method = findKnownSetter(knownValueSetters.get(propertyName));
+                    if (method == null) {
+                        method = findValueSetter(propertyName);
+                    }
+                    Converter<String, Object> converter = conversionService.getLiteralConverter(method.getGenericParameterTypes()[0]);
+                    setter = new PropertySetter(method, instantiationStrategy.getSetter(method), converter);
+                    valueSetters.put(propertyName, setter);
+                }
+            }
+        }
+        return setter;
+    }
+
+    PropertySetter getRefSetter(String propertyName) throws ReflectiveOperationException {
+        PropertySetter setter = refSetters.get(propertyName);
+        if (setter == null) {
+            synchronized (refSetters) {
+                setter = refSetters.get(propertyName);
+                if (setter == null) {
+                    Method method = findKnownSetter(knownRefSetters.get(propertyName));
+                    if (method == null) {
+                        method = findRefSetter(propertyName);
+                    }
+                    setter = new PropertySetter(method, instantiationStrategy.getSetter(method), null);
+                    refSetters.put(propertyName, setter);
+                }
+            }
+        }
+        return setter;
+    }
+
+    // refs holds the resolved ref arguments, a ref only matches parameters its class is assignable to
+    ConstructorPlan getConstructorPlan(List<ConstructorArgument> arguments, Object[] refs) throws ReflectiveOperationException {
+        StringBuilder key = new StringBuilder(arguments.size() * 16);
+        for (int i = 0; i < refs.length; i++) {
+            if (arguments.get(i).isRef()) {
+                key.append('r').append(refs[i] == null ? "" : refs[i].getClass().getName()).append(',');
+            } else {
+                key.append('v');
+            }
+        }
+        ConstructorPlan plan = constructorPlans.get(key.toString());
+        if (plan == null) {
+            synchronized (constructorPlans) {
+                plan = constructorPlans.get(key.toString());
+                if (plan == null) {
+                    plan = createConstructorPlan(findConstructor(arguments, refs));
+                    constructorPlans.put(key.toString(), plan);
+                }
+            }
+        }
+        return plan;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConstructorPlan createConstructorPlan(Constructor<?> constructor) throws ReflectiveOperationException {
+        Type[] parameterTypes = constructor.getGenericParameterTypes();
+        Converter<String, Object>[] converters = new Converter[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            converters[i] = conversionService.getLiteralConverter(parameterTypes[i]);
+        }
+        return new ConstructorPlan(constructor, instantiationStrategy.getInstantiator(constructor), converters);
+    }
+
+    // value arguments prefer the parameter types setters prefer, public constructors win ties, other ties are ambiguous
+    private Constructor<?> findConstructor(List<ConstructorArgument> arguments, Object[] refs) throws NoSuchMethodException {
+        Constructor<?> best = null;
+        int bestScore = Integer.MAX_VALUE;
+        boolean ambiguous = false;
+        for (Constructor<?> constructor : beanClass.getDeclaredConstructors()) {
+            if (constructor.getParameterCount() != arguments.size()) {
+                continue;
+            }
+            int score = getScore(constructor, arguments, refs);
+            if (score < 0) {
+                continue;
+            }
+            if (score < bestScore) {
+                best = constructor;
+                bestScore = score;
+                ambiguous = false;
+            } else if (score == bestScore) {
+                ambiguous = true;
+            }
+        }
+        if (best == null) {
+            throw new NoSuchMethodException("No constructor of " + beanClass.getName() + " matches " + arguments);
+        }
+        if (ambiguous) {
+            throw new NoSuchMethodException("Ambiguous constructors of " + beanClass.getName() + " for " + arguments);
+        }
+        return best;
+    }
+
+    private int getScore(Constructor<?> constructor, List<ConstructorArgument> arguments, Object[] refs) {
+        Class<?>[] parameterClasses = constructor.getParameterTypes();
+        Type[] parameterTypes = constructor.getGenericParameterTypes();
+        int score = Modifier.isPublic(constructor.getModifiers()) ? 0 : 1;
+        for (int i = 0; i < parameterClasses.length; i++) {
+            if (arguments.get(i).isRef()) {
+                if (parameterClasses[i].isPrimitive()
+                        || (refs[i] != null && !parameterClasses[i].isAssignableFrom(refs[i].getClass()))) {
+                    return -1;
+                }
+            } else {
+                if (!conversionService.canConvert(String.class, parameterTypes[i])) {
+                    return -1;
+                }
+                int preference = VALUE_TYPES.indexOf(parameterClasses[i]);
+                score += 2 * (preference < 0 ? VALUE_TYPES.size() : preference);
+            }
+        }
+        return score;
+    }
+
+    // init and destroy methods take no arguments and may be private
+    Method getLifecycleMethod(String methodName) throws NoSuchMethodException {
+        Method method = lifecycleMethods.get(methodName);
+        if (method == null) {
+            method = findLifecycleMethod(methodName);
+            lifecycleMethods.put(methodName, method);
+        }
+        return method;
+    }
+
+    private Method findLifecycleMethod(String methodName) throws NoSuchMethodException {
+        for (Class<?> clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(methodName) && method.getParameterCount() == 0) {
+                    method.setAccessible(true);
+                    return method;
+                }
+            }
+        }
+        throw new NoSuchMethodException(beanClass.getName() + "." + methodName + "()");
+    }
+
+    private Method findValueSetter(String propertyName) throws NoSuchMethodException {
+        List<Method> candidates = getCandidates(propertyName);
+        for (Class<?> valueType : VALUE_TYPES) {
+            for (Method candidate : candidates) {
+                if (candidate.getParameterTypes()[0] == valueType) {
+                    return candidate;
+                }
+            }
+        }
+        for (Method candidate : candidates) {
+            if (conversionService.canConvert(String.class, candidate.getGenericParameterTypes()[0])) {
+                return candidate;
+            }
+        }
+        throw new NoSuchMethodException(beanClass.getName() + "." + getSetterName(propertyName));
+    }
+
+    private Method findRefSetter(String propertyName) throws NoSuchMethodException {
+        List<Method> candidates = getCandidates(propertyName);
+        if (candidates.isEmpty()) {
+            throw new NoSuchMethodException(beanClass.getName() + "." + getSetterName(propertyName));
+        }
+        return candidates.get(0);
+    }
+
+    private List<Method> getCandidates(String propertyName) {
+        List<Method> candidates = getSettersByName().get(getSetterName(propertyName));
+        return candidates == null ? Collections.emptyList() : candidates;
+    }
+
+    private Map<String, List<Method>> getSettersByName() {
+        Map<String, List<Method>> settersByName = this.settersByName;
+        if (settersByName == null) {
+            settersByName = new HashMap<>();
+            for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (method.getParameterCount() == 1 && method.getName().startsWith("set") && !method.isBridge()) {
+                        settersByName.computeIfAbsent(method.getName(), name -> new ArrayList<>(1)).add(method);
+                    }
+                }
+            }
+            this.settersByName = settersByName;
+        }
+        return settersByName;
+    }
+
+    // null when the class changed since the signature was recorded, the setter is then searched for again
+    private Method findKnownSetter(SetterSignature setter) {
+        if (setter == null) {
+            return null;
+        }
+        try {
+            ClassLoader classLoader = beanClass.getClassLoader();
+            Class<?> declaringClass = Class.forName(setter.getDeclaringClass(), false, classLoader);
+            if (!declaringClass.isAssignableFrom(beanClass)) {
+                return null;
+            }
+            Class<?> parameterType = PRIMITIVE_TYPES.get(setter.getParameterType());
+            if (parameterType == null) {
+                parameterType = Class.forName(setter.getParameterType(), false, classLoader);
+            }
+            return declaringClass.getDeclaredMethod(getSetterName(setter.getProperty()), parameterType);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    // what a startup cache needs to skip findValueSetter and findRefSetter next time
+    List<SetterSignature> getSetterSignatures() {
+        List<SetterSignature> signatures = new ArrayList<>(valueSetters.size() + refSetters.size());
+        for (Map.Entry<String, PropertySetter> setter : valueSetters.entrySet()) {
+            signatures.add(getSetterSignature(setter.getKey(), setter.getValue().getMethod(), false));
+        }
+        for (Map.Entry<String, PropertySetter> setter : refSetters.entrySet()) {
+            signatures.add(getSetterSignature(setter.getKey(), setter.getValue().getMethod(), true));
+        }
+        return signatures;
+    }
+
+    private SetterSignature getSetterSignature(String propertyName, Method method, boolean ref) {
+        return new SetterSignature(beanClass.getName(), ref, propertyName,
+                method.getDeclaringClass().getName(), method.getParameterTypes()[0].getName());
+    }
+
+    static String getSetterName(String fieldName) {
+        return "set" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.InstantiationStrategy;
+import com.study.ioc.convert.ConversionService;
+import com.study.ioc.reader.binary.StartupCache.SetterSignature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class InjectionPlanCache {
+    private final Map<Class<?>, InjectionPlan> plans = new ConcurrentHashMap<>();
+    private final InstantiationStrategy instantiationStrategy;
+    private final ConversionService conversionService;
+    // keyed by bean class name, handed to plans created afterwards
+    private volatile Map<String, List<SetterSignature>> knownSetters = Collections.emptyMap();
+
+    InjectionPlanCache(InstantiationStrategy instantiationStrategy, ConversionService conversionService) {
+        this.instantiationStrategy = instantiationStrategy;
+        this.conversionService = conversionService;
+    }
+
+    InjectionPlan getPlan(Class<?> beanClass) {
+        InjectionPlan plan = plans.get(beanClass);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(beanClass, clazz -> new InjectionPlan(clazz, instantiationStrategy, conversionService,
+                    knownSetters.getOrDefault(clazz.getName(), Collections.emptyList())));
+        }
+        return plan;
+    }
+
+    void setKnownSetters(List<SetterSignature> setters) {
+        Map<String, List<SetterSignature>> settersByClass = new HashMap<>();
+        for (SetterSignature setter : setters) {
+            settersByClass.computeIfAbsent(setter.getBeanClass(), name -> new ArrayList<>()).add(setter);
+        }
+        knownSetters = settersByClass;
+    }
+
+    List<SetterSignature> getSetterSignatures() {
+        List<SetterSignature> signatures = new ArrayList<>();
+        for (InjectionPlan plan : plans.values()) {
+            signatures.addAll(plan.getSetterSignatures());
+        }
+        return signatures;
+    }
+
+    int size() {
+        return plans.size();
+    }
+}
@@ -0,0 +1,102 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.InstantiationStrategy;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.ProcessPostConstructException;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class LambdaInstantiationStrategy implements InstantiationStrategy {
+    private static final MethodType SUPPLIER_FACTORY = MethodType.methodType(Supplier.class);
+    private static final MethodType SUPPLIER_GET = MethodType.methodType(Object.class);
+    private static final MethodType BI_CONSUMER_FACTORY = MethodType.methodType(BiConsumer.class);
+    private static final MethodType BI_CONSUMER_ACCEPT = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final ReflectiveInstantiationStrategy fallback = new ReflectiveInstantiationStrategy();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Supplier<Object> getInstantiator(Class<?> beanClass) throws ReflectiveOperationException {
+        if (!isLinkable(beanClass)) {
+            return fallback.getInstantiator(beanClass);
+        }
+        MethodHandle constructor = lookup.findConstructor(beanClass, MethodType.methodType(void.class));
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", SUPPLIER_FACTORY, SUPPLIER_GET,
+                    constructor, MethodType.methodType(beanClass));
+            return (Supplier<Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle genericConstructor = constructor.asType(SUPPLIER_GET);
+            return () -> {
+                try {
+                    return genericConstructor.invokeExact();
+                } catch (Throwable t) {
+                    throw new BeanInstantiationException("Error instantiating bean of class " + beanClass.getName(), t);
+                }
+            };
+        }
+    }
+
+    // there is no functional interface for n arguments, so the constructor handle is spread over the argument array
+    @Override
+    public Function<Object[], Object> getInstantiator(Constructor<?> constructor) throws ReflectiveOperationException {
+        Class<?> beanClass = constructor.getDeclaringClass();
+        if (!isLinkable(beanClass) || !Modifier.isPublic(constructor.getModifiers())) {
+            return fallback.getInstantiator(constructor);
+        }
+        MethodHandle handle = lookup.unreflectConstructor(constructor)
+                .asSpreader(Object[].class, constructor.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return arguments -> {
+            try {
+                return handle.invokeExact(arguments);
+            } catch (Throwable t) {
+                throw new BeanInstantiationException("Error instantiating bean with " + constructor, t);
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BiConsumer<Object, Object> getSetter(Method setter) throws ReflectiveOperationException {
+        Class<?> declaringClass = setter.getDeclaringClass();
+        if (!isLinkable(declaringClass) || !Modifier.isPublic(setter.getModifiers())) {
+            return fallback.getSetter(setter);
+        }
+        MethodHandle handle = lookup.unreflect(setter);
+        Class<?> parameterType = handle.type().parameterType(1);
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", BI_CONSUMER_FACTORY, BI_CONSUMER_ACCEPT,
+                    handle, MethodType.methodType(void.class, declaringClass, MethodType.methodType(parameterType).wrap().returnType()));
+            return (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle genericHandle = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (object, value) -> {
+                try {
+                    genericHandle.invokeExact(object, value);
+                } catch (Throwable t) {
+                    throw new ProcessPostConstructException("Error invoking " + setter, t);
+                }
+            };
+        }
+    }
+
+    // lambdas are spun next to this class, so the bean class must be public and visible from its loader
+    private boolean isLinkable(Class<?> beanClass) {
+        if (!Modifier.isPublic(beanClass.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(beanClass.getName(), false, getClass().getClassLoader()) == beanClass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.processor.BeanPostProcessor;
+import com.study.ioc.processor.Ordered;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class PostProcessorPipeline {
+    private static final BeanPostProcessor[] NONE = new BeanPostProcessor[0];
+
+    private final List<BeanPostProcessor> processors;
+    private final Map<Class<?>, BeanPostProcessor[]> processorsByClass = new ConcurrentHashMap<>();
+
+    PostProcessorPipeline(List<BeanPostProcessor> processors) {
+        this.processors = new ArrayList<>(processors);
+        this.processors.sort(Ordered.COMPARATOR);
+    }
+
+    Object initialize(Object bean, String beanId, InjectionPlan plan, String initMethod) throws ReflectiveOperationException {
+        BeanPostProcessor[] applicable = getProcessors(bean.getClass());
+        if (applicable.length == 0 && initMethod == null) {
+            return bean;
+        }
+        Object result = bean;
+        for (BeanPostProcessor processor : applicable) {
+            Object processed = processor.postProcessBeforeInitialization(result, beanId);
+            if (processed != null) {
+                result = processed;
+            }
+        }
+        // on the object the context created, the destroy method runs on it as well
+        if (initMethod != null) {
+            plan.getLifecycleMethod(initMethod).invoke(bean);
+        }
+        for (BeanPostProcessor processor : applicable) {
+            Object processed = processor.postProcessAfterInitialization(result, beanId);
+            if (processed != null) {
+                result = processed;
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return processors.size();
+    }
+
+    private BeanPostProcessor[] getProcessors(Class<?> beanClass) {
+        BeanPostProcessor[] applicable = processorsByClass.get(beanClass);
+        if (applicable == null) {
+            List<BeanPostProcessor> supporting = new ArrayList<>(processors.size());
+            for (BeanPostProcessor processor : processors) {
+                if (processor.supports(beanClass)) {
+                    supporting.add(processor);
+                }
+            }
+            applicable = supporting.isEmpty() ? NONE : supporting.toArray(new BeanPostProcessor[0]);
+            processorsByClass.put(beanClass, applicable);
+        }
+        return applicable;
+    }
+}
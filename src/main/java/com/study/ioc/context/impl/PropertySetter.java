@@ -0,0 +1,37 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.convert.Converter;
+
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+class PropertySetter {
+    private final Method method;
+    private final Class<?> parameterType;
+    private final BiConsumer<Object, Object> accessor;
+    private final Converter<String, Object> literalConverter;
+
+    // literalConverter is null for ref setters
+    PropertySetter(Method method, BiConsumer<Object, Object> accessor, Converter<String, Object> literalConverter) {
+        this.method = method;
+        this.parameterType = method.getParameterTypes()[0];
+        this.accessor = accessor;
+        this.literalConverter = literalConverter;
+    }
+
+    Method getMethod() {
+        return method;
+    }
+
+    Class<?> getParameterType() {
+        return parameterType;
+    }
+
+    void injectValue(Object object, String propertyValue) {
+        accessor.accept(object, literalConverter.convert(propertyValue));
+    }
+
+    void injectDependency(Object object, Object dependencyObject) {
+        accessor.accept(object, dependencyObject);
+    }
+}
@@ -0,0 +1,49 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.InstantiationStrategy;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.ProcessPostConstructException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ReflectiveInstantiationStrategy implements InstantiationStrategy {
+
+    @Override
+    public Supplier<Object> getInstantiator(Class<?> beanClass) throws ReflectiveOperationException {
+        Constructor<?> constructor = beanClass.getConstructor();
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new BeanInstantiationException("Error instantiating bean of class " + beanClass.getName(), e);
+            }
+        };
+    }
+
+    @Override
+    public Function<Object[], Object> getInstantiator(Constructor<?> constructor) {
+        constructor.setAccessible(true);
+        return arguments -> {
+            try {
+                return constructor.newInstance(arguments);
+            } catch (ReflectiveOperationException e) {
+                throw new BeanInstantiationException("Error instantiating bean with " + constructor, e);
+            }
+        };
+    }
+
+    @Override
+    public BiConsumer<Object, Object> getSetter(Method setter) {
+        return (object, value) -> {
+            try {
+                setter.invoke(object, value);
+            } catch (ReflectiveOperationException e) {
+                throw new ProcessPostConstructException("Error invoking " + setter, e);
+            }
+        };
+    }
+}
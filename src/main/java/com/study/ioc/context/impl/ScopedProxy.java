@@ -0,0 +1,58 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.exception.BeanInstantiationException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// injected in place of a scoped or pooled bean, every call goes to the object the scope or pool hands out right then
+final class ScopedProxy implements InvocationHandler {
+    private final DeferredBean bean;
+
+    private ScopedProxy(DeferredBean bean) {
+        this.bean = bean;
+    }
+
+    static Object create(DeferredBean bean) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> clazz = bean.getBeanClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            for (Class<?> interfaceClass : clazz.getInterfaces()) {
+                interfaces.add(interfaceClass);
+            }
+        }
+        if (interfaces.isEmpty()) {
+            throw new BeanInstantiationException("Scoped bean " + bean.getId()
+                    + " can only be injected through an interface, " + bean.getBeanClass().getName() + " implements none", null);
+        }
+        return Proxy.newProxyInstance(bean.getBeanClass().getClassLoader(), interfaces.toArray(new Class<?>[0]),
+                new ScopedProxy(bean));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Scoped proxy for bean " + bean.getId();
+                default:
+                    break;
+            }
+        }
+        Object target = bean.getTarget();
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            bean.releaseTarget(target);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.study.ioc.convert;
+
+import com.study.ioc.exception.ConversionException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// converts property literals to setter parameter types; converters are resolved once per (source, target) pair.
+// Converted literals of immutable types are cached per target type, arrays of them are copied on every use,
+// anything else is converted anew; list items and map entries are separated by commas, "key=value"
+public class ConversionService {
+    private static final Map<Class<?>, Converter<String, ?>> STRING_CONVERTERS = new HashMap<>();
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>();
+
+    static {
+        STRING_CONVERTERS.put(Integer.TYPE, source -> Integer.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Integer.class, source -> Integer.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Long.TYPE, source -> Long.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Long.class, source -> Long.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Short.TYPE, source -> Short.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Short.class, source -> Short.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Byte.TYPE, source -> Byte.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Byte.class, source -> Byte.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Double.TYPE, source -> Double.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Double.class, source -> Double.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Float.TYPE, source -> Float.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Float.class, source -> Float.valueOf(source.trim()));
+        STRING_CONVERTERS.put(Boolean.TYPE, ConversionService::toBoolean);
+        STRING_CONVERTERS.put(Boolean.class, ConversionService::toBoolean);
+        STRING_CONVERTERS.put(Character.TYPE, ConversionService::toCharacter);
+        STRING_CONVERTERS.put(Character.class, ConversionService::toCharacter);
+        STRING_CONVERTERS.put(BigInteger.class, source -> new BigInteger(source.trim()));
+        STRING_CONVERTERS.put(BigDecimal.class, source -> new BigDecimal(source.trim()));
+        STRING_CONVERTERS.put(Duration.class, ConversionService::toDuration);
+        STRING_CONVERTERS.put(DataSize.class, DataSize::parse);
+        IMMUTABLE_TYPES.addAll(STRING_CONVERTERS.keySet());
+        IMMUTABLE_TYPES.add(String.class);
+    }
+
+    private final Map<ConvertiblePair, Converter<Object, Object>> userConverters = new ConcurrentHashMap<>();
+    private final Map<ConvertiblePair, Optional<Converter<Object, Object>>> resolvedConverters = new ConcurrentHashMap<>();
+    private final Map<Type, Converter<String, Object>> literalConverters = new ConcurrentHashMap<>();
+
+    // user converters take precedence over the built in ones, also for list items and map entries
+    @SuppressWarnings("unchecked")
+    public <S, T> void addConverter(Class<S> sourceType, Class<T> targetType, Converter<? super S, ? extends T> converter) {
+        userConverters.put(new ConvertiblePair(sourceType, targetType), (Converter<Object, Object>) converter);
+        resolvedConverters.clear();
+        literalConverters.clear();
+    }
+
+    public boolean canConvert(Class<?> sourceType, Type targetType) {
+        return getConverter(sourceType, targetType) != null;
+    }
+
+    public Object convert(Object source, Type targetType) {
+        if (source == null) {
+            return null;
+        }
+        Converter<Object, Object> converter = getConverter(source.getClass(), targetType);
+        if (converter == null) {
+            throw new ConversionException("No converter from " + source.getClass().getName() + " to " + targetType.getTypeName());
+        }
+        return convert(converter, source, targetType);
+    }
+
+    // the returned converter caches results that cannot be changed by the bean they are injected into,
+    // null when the type is not convertible from String
+    public Converter<String, Object> getLiteralConverter(Type targetType) {
+        Converter<String, Object> literalConverter = literalConverters.get(targetType);
+        if (literalConverter == null) {
+            Converter<Object, Object> converter = getConverter(String.class, targetType);
+            if (converter == null) {
+                return null;
+            }
+            boolean array = getRawClass(targetType).isArray();
+            if (isImmutable(array ? getComponentType(targetType) : targetType)) {
+                Map<String, Object> literals = new ConcurrentHashMap<>();
+                literalConverter = literal -> {
+                    Object value = literals.get(literal);
+                    if (value == null) {
+                        value = convert(converter, literal, targetType);
+                        if (value != null) {
+                            literals.put(literal, value);
+                        }
+                    }
+                    return array && value != null ? copyArray(value) : value;
+                };
+            } else {
+                literalConverter = literal -> convert(converter, literal, targetType);
+            }
+            Converter<String, Object> existing = literalConverters.putIfAbsent(targetType, literalConverter);
+            literalConverter = existing == null ? literalConverter : existing;
+        }
+        return literalConverter;
+    }
+
+    @SuppressWarnings("unchecked")
+    Converter<Object, Object> getConverter(Class<?> sourceType, Type targetType) {
+        ConvertiblePair pair = new ConvertiblePair(sourceType, targetType);
+        Optional<Converter<Object, Object>> converter = resolvedConverters.get(pair);
+        if (converter == null) {
+            converter = Optional.ofNullable(findConverter(sourceType, targetType));
+            resolvedConverters.put(pair, converter);
+        }
+        return converter.orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Converter<Object, Object> findConverter(Class<?> sourceType, Type targetType) {
+        Class<?> targetClass = getRawClass(targetType);
+        for (Class<?> type = sourceType; type != null; type = type.getSuperclass()) {
+            Converter<Object, Object> userConverter = userConverters.get(new ConvertiblePair(type, targetClass));
+            if (userConverter != null) {
+                return userConverter;
+            }
+        }
+        if (targetClass.isAssignableFrom(sourceType) && !(targetType instanceof ParameterizedType)) {
+            return source -> source;
+        }
+        if (sourceType != String.class) {
+            return null;
+        }
+        Converter<String, ?> converter = STRING_CONVERTERS.get(targetClass);
+        if (converter != null) {
+            return (Converter<Object, Object>) (Converter<?, ?>) converter;
+        }
+        if (targetClass.isEnum()) {
+            return source -> toEnum(targetClass, (String) source);
+        }
+        if (targetClass.isArray()) {
+            Type componentType = getComponentType(targetType);
+            Converter<Object, Object> itemConverter = getConverter(String.class, componentType);
+            return itemConverter == null ? null : source -> toArray(getRawClass(componentType), componentType, itemConverter, (String) source);
+        }
+        if (targetClass == List.class || targetClass == Collection.class || targetClass == Iterable.class
+                || targetClass == Set.class) {
+            Type itemType = getTypeArgument(targetType, 0);
+            Converter<Object, Object> itemConverter = getConverter(String.class, itemType);
+            return itemConverter == null ? null : source -> toCollection(targetClass == Set.class, itemType, itemConverter, (String) source);
+        }
+        if (targetClass == Map.class) {
+            Type keyType = getTypeArgument(targetType, 0);
+            Type valueType = getTypeArgument(targetType, 1);
+            Converter<Object, Object> keyConverter = getConverter(String.class, keyType);
+            Converter<Object, Object> valueConverter = getConverter(String.class, valueType);
+            return keyConverter == null || valueConverter == null
+                    ? null : source -> toMap(keyType, keyConverter, valueType, valueConverter, (String) source);
+        }
+        return null;
+    }
+
+    // built in conversions to immutable types, the unmodifiable collections count if their items are immutable;
+    // a user converter may hand out anything, so its results never count
+    private boolean isImmutable(Type type) {
+        Class<?> rawClass = getRawClass(type);
+        if (userConverters.containsKey(new ConvertiblePair(String.class, rawClass))
+                || userConverters.containsKey(new ConvertiblePair(Object.class, rawClass))) {
+            return false;
+        }
+        if (IMMUTABLE_TYPES.contains(rawClass) || rawClass.isEnum()) {
+            return true;
+        }
+        if (rawClass == List.class || rawClass == Collection.class || rawClass == Iterable.class || rawClass == Set.class) {
+            return isImmutable(getTypeArgument(type, 0));
+        }
+        if (rawClass == Map.class) {
+            return isImmutable(getTypeArgument(type, 0)) && isImmutable(getTypeArgument(type, 1));
+        }
+        return false;
+    }
+
+    private static Object copyArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static Object convert(Converter<Object, Object> converter, Object source, Type targetType) {
+        try {
+            return converter.convert(source);
+        } catch (ConversionException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ConversionException("Can not convert '" + source + "' to " + targetType.getTypeName(), e);
+        }
+    }
+
+    private static Boolean toBoolean(String source) {
+        String value = source.trim();
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Expected true or false");
+    }
+
+    private static Character toCharacter(String source) {
+        if (source.length() != 1) {
+            throw new IllegalArgumentException("Expected a single character");
+        }
+        return source.charAt(0);
+    }
+
+    // ISO-8601 like PT5S, or a number with one of the units ns, us, ms, s, m, h, d; milliseconds without unit
+    private static Duration toDuration(String source) {
+        String value = source.trim();
+        if (value.startsWith("P") || value.startsWith("-P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        int unitStart = value.length();
+        while (unitStart > 0 && Character.isLetter(value.charAt(unitStart - 1))) {
+            unitStart--;
+        }
+        long amount = Long.parseLong(value.substring(0, unitStart).trim());
+        switch (value.substring(unitStart).toLowerCase(Locale.ROOT)) {
+            case "ns":
+                return Duration.ofNanos(amount);
+            case "us":
+                return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(amount));
+            case "":
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException("Unknown duration unit " + value.substring(unitStart));
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> enumType, String source) {
+        String name = source.trim();
+        try {
+            return Enum.valueOf((Class) enumType, name);
+        } catch (IllegalArgumentException e) {
+            for (Object constant : enumType.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equalsIgnoreCase(name)) {
+                    return constant;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static Object toArray(Class<?> componentClass, Type componentType, Converter<Object, Object> itemConverter, String source) {
+        List<String> items = split(source, ',');
+        Object array = Array.newInstance(componentClass, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Array.set(array, i, convert(itemConverter, items.get(i), componentType));
+        }
+        return array;
+    }
+
+    private static Object toCollection(boolean set, Type itemType, Converter<Object, Object> itemConverter, String source) {
+        List<String> items = split(source, ',');
+        Collection<Object> collection = set ? new LinkedHashSet<>(items.size() * 2) : new ArrayList<>(items.size());
+        for (String item : items) {
+            collection.add(convert(itemConverter, item, itemType));
+        }
+        return set ? Collections.unmodifiableSet((Set<Object>) collection) : Collections.unmodifiableList((List<Object>) collection);
+    }
+
+    private static Object toMap(Type keyType, Converter<Object, Object> keyConverter, Type valueType,
+                                Converter<Object, Object> valueConverter, String source) {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (String entry : split(source, ',')) {
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value, but was '" + entry + "'");
+            }
+            map.put(convert(keyConverter, entry.substring(0, separator).trim(), keyType),
+                    convert(valueConverter, entry.substring(separator + 1).trim(), valueType));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static List<String> split(String source, char separator) {
+        if (source.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> items = new ArrayList<>();
+        int start = 0;
+        for (int end = source.indexOf(separator); end >= 0; end = source.indexOf(separator, start)) {
+            items.add(source.substring(start, end).trim());
+            start = end + 1;
+        }
+        items.add(source.substring(start).trim());
+        return items;
+    }
+
+    private static Type getTypeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            return ((ParameterizedType) type).getActualTypeArguments()[index];
+        }
+        return String.class;
+    }
+
+    private static Type getComponentType(Type arrayType) {
+        return arrayType instanceof GenericArrayType
+                ? ((GenericArrayType) arrayType).getGenericComponentType() : ((Class<?>) arrayType).getComponentType();
+    }
+
+    private static Class<?> getRawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(getRawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        // wildcards and type variables
+        return Object.class;
+    }
+
+    private static final class ConvertiblePair {
+        private final Class<?> sourceType;
+        private final Type targetType;
+
+        private ConvertiblePair(Class<?> sourceType, Type targetType) {
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ConvertiblePair)) {
+                return false;
+            }
+            ConvertiblePair that = (ConvertiblePair) o;
+            return sourceType == that.sourceType && targetType.equals(that.targetType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sourceType.hashCode() + targetType.hashCode();
+        }
+    }
+}
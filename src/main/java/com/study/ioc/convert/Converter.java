@@ -0,0 +1,5 @@
+package com.study.ioc.convert;
+
+public interface Converter<S, T> {
+    T convert(S source);
+}
@@ -0,0 +1,69 @@
+package com.study.ioc.convert;
+
+import java.util.Locale;
+
+// a number of bytes, parsed from values like 512, 64KB, 10MB or 2GB (binary multiples)
+public final class DataSize implements Comparable<DataSize> {
+    private static final String[] UNITS = {"B", "KB", "MB", "GB", "TB"};
+
+    private final long bytes;
+
+    private DataSize(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public static DataSize ofBytes(long bytes) {
+        return new DataSize(bytes);
+    }
+
+    public static DataSize ofKilobytes(long kilobytes) {
+        return new DataSize(Math.multiplyExact(kilobytes, 1024L));
+    }
+
+    public static DataSize ofMegabytes(long megabytes) {
+        return new DataSize(Math.multiplyExact(megabytes, 1024L * 1024));
+    }
+
+    public static DataSize parse(String text) {
+        String value = text.trim().toUpperCase(Locale.ROOT);
+        for (int unit = UNITS.length - 1; unit >= 0; unit--) {
+            if (value.endsWith(UNITS[unit])) {
+                long amount = Long.parseLong(value.substring(0, value.length() - UNITS[unit].length()).trim());
+                return new DataSize(Math.multiplyExact(amount, 1L << (10 * unit)));
+            }
+        }
+        return new DataSize(Long.parseLong(value));
+    }
+
+    public long toBytes() {
+        return bytes;
+    }
+
+    public long toKilobytes() {
+        return bytes / 1024;
+    }
+
+    public long toMegabytes() {
+        return bytes / (1024 * 1024);
+    }
+
+    @Override
+    public int compareTo(DataSize other) {
+        return Long.compare(bytes, other.bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof DataSize && bytes == ((DataSize) o).bytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return bytes + "B";
+    }
+}
@@ -1,12 +1,30 @@
 package com.study.ioc.entity;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class BeanDefinition {
+    public static final String SCOPE_SINGLETON = "singleton";
+    public static final String SCOPE_PROTOTYPE = "prototype";
+    public static final String SCOPE_THREAD = "thread";
+
     private String id;
     private String className;
+    private String scope = SCOPE_SINGLETON;
+    private boolean lazyInit;
+    private String initMethod;
+    private String destroyMethod;
     private Map<String, String> valueDependencies;
     private Map<String, String> refDependencies;
+    private List<ConstructorArgument> constructorArguments = Collections.emptyList();
+    // prototypes only, 0 creates a new object for every use
+    private int poolSize;
+    // 0 keeps idle pooled objects forever
+    private long poolMaxIdleMillis;
 
     public BeanDefinition(String id, String className) {
         this.id = id;
@@ -29,6 +47,50 @@ public class BeanDefinition {
         this.className = className;
     }
 
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public boolean isSingleton() {
+        return SCOPE_SINGLETON.equals(scope);
+    }
+
+    public boolean isPrototype() {
+        return SCOPE_PROTOTYPE.equals(scope);
+    }
+
+    public boolean isPooled() {
+        return poolSize > 0;
+    }
+
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    public String getInitMethod() {
+        return initMethod;
+    }
+
+    public void setInitMethod(String initMethod) {
+        this.initMethod = initMethod;
+    }
+
+    public String getDestroyMethod() {
+        return destroyMethod;
+    }
+
+    public void setDestroyMethod(String destroyMethod) {
+        this.destroyMethod = destroyMethod;
+    }
+
     public Map<String, String> getValueDependencies() {
         return valueDependencies;
     }
@@ -44,4 +106,86 @@ public class BeanDefinition {
     public void setRefDependencies(Map<String, String> refDependencies) {
         this.refDependencies = refDependencies;
     }
+
+    public List<ConstructorArgument> getConstructorArguments() {
+        return constructorArguments;
+    }
+
+    public void setConstructorArguments(List<ConstructorArgument> constructorArguments) {
+        this.constructorArguments = constructorArguments;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public long getPoolMaxIdleMillis() {
+        return poolMaxIdleMillis;
+    }
+
+    public void setPoolMaxIdleMillis(long poolMaxIdleMillis) {
+        this.poolMaxIdleMillis = poolMaxIdleMillis;
+    }
+
+    // readers and compact() hand out immutable properties and constructor arguments, afterwards they can be changed in place
+    public void makeMutable() {
+        valueDependencies = valueDependencies == null ? null : new LinkedHashMap<>(valueDependencies);
+        refDependencies = refDependencies == null ? null : new LinkedHashMap<>(refDependencies);
+        constructorArguments = new ArrayList<>(constructorArguments);
+    }
+
+    // an equal copy holding its properties in flat arrays and its strings in the given table,
+    // for definitions that are kept for as long as the context lives
+    public BeanDefinition compact(SymbolTable symbols) {
+        BeanDefinition compactDefinition = new BeanDefinition(symbols.intern(id), symbols.intern(className));
+        compactDefinition.scope = symbols.intern(scope);
+        compactDefinition.lazyInit = lazyInit;
+        compactDefinition.initMethod = symbols.intern(initMethod);
+        compactDefinition.destroyMethod = symbols.intern(destroyMethod);
+        compactDefinition.valueDependencies = valueDependencies == null ? null : PropertyMap.copyOf(valueDependencies, symbols);
+        compactDefinition.refDependencies = refDependencies == null ? null : PropertyMap.copyOf(refDependencies, symbols);
+        if (!constructorArguments.isEmpty()) {
+            List<ConstructorArgument> arguments = new ArrayList<>(constructorArguments.size());
+            for (ConstructorArgument argument : constructorArguments) {
+                arguments.add(argument.isRef()
+                        ? ConstructorArgument.ref(symbols.intern(argument.getRef()))
+                        : ConstructorArgument.value(symbols.intern(argument.getValue())));
+            }
+            compactDefinition.constructorArguments = Collections.unmodifiableList(arguments);
+        }
+        compactDefinition.poolSize = poolSize;
+        compactDefinition.poolMaxIdleMillis = poolMaxIdleMillis;
+        return compactDefinition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BeanDefinition that = (BeanDefinition) o;
+        return lazyInit == that.lazyInit
+                && poolSize == that.poolSize
+                && poolMaxIdleMillis == that.poolMaxIdleMillis
+                && Objects.equals(id, that.id)
+                && Objects.equals(className, that.className)
+                && Objects.equals(scope, that.scope)
+                && Objects.equals(initMethod, that.initMethod)
+                && Objects.equals(destroyMethod, that.destroyMethod)
+                && Objects.equals(valueDependencies, that.valueDependencies)
+                && Objects.equals(refDependencies, that.refDependencies)
+                && Objects.equals(constructorArguments, that.constructorArguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, className);
+    }
 }
@@ -0,0 +1,56 @@
+package com.study.ioc.entity;
+
+import java.util.Objects;
+
+// either a literal value or the id of another bean
+public class ConstructorArgument {
+    private final String value;
+    private final String ref;
+
+    private ConstructorArgument(String value, String ref) {
+        this.value = value;
+        this.ref = ref;
+    }
+
+    public static ConstructorArgument value(String value) {
+        return new ConstructorArgument(value, null);
+    }
+
+    public static ConstructorArgument ref(String ref) {
+        return new ConstructorArgument(null, ref);
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public boolean isRef() {
+        return ref != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConstructorArgument that = (ConstructorArgument) o;
+        return Objects.equals(value, that.value) && Objects.equals(ref, that.ref);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value, ref);
+    }
+
+    @Override
+    public String toString() {
+        return isRef() ? "ref " + ref : "value " + value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.study.ioc.entity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+// immutable property name to value map stored as two parallel arrays sorted by name,
+// a bean costs two arrays instead of a HashMap with a node per property
+public final class PropertyMap extends AbstractMap<String, String> {
+    public static final PropertyMap EMPTY = new PropertyMap(new String[0], new String[0]);
+
+    private final String[] names;
+    private final String[] values;
+
+    private PropertyMap(String[] names, String[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    // a later value of the same name wins, as with Map.put
+    public static PropertyMap of(List<String> names, List<String> values, SymbolTable symbols) {
+        return of(names, values, symbols::intern);
+    }
+
+    // for strings that are shared by the caller already
+    public static PropertyMap of(List<String> names, List<String> values) {
+        return of(names, values, UnaryOperator.identity());
+    }
+
+    private static PropertyMap of(List<String> names, List<String> values, UnaryOperator<String> intern) {
+        if (names.isEmpty()) {
+            return EMPTY;
+        }
+        String[] sortedNames = new String[names.size()];
+        String[] sortedValues = new String[names.size()];
+        int size = 0;
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            String value = intern.apply(values.get(i));
+            int index = Arrays.binarySearch(sortedNames, 0, size, name);
+            if (index >= 0) {
+                sortedValues[index] = value;
+                continue;
+            }
+            // properties of one bean are few, shifting the tail is cheaper than sorting an index
+            index = -index - 1;
+            System.arraycopy(sortedNames, index, sortedNames, index + 1, size - index);
+            System.arraycopy(sortedValues, index, sortedValues, index + 1, size - index);
+            sortedNames[index] = intern.apply(name);
+            sortedValues[index] = value;
+            size++;
+        }
+        if (size < sortedNames.length) {
+            sortedNames = Arrays.copyOf(sortedNames, size);
+            sortedValues = Arrays.copyOf(sortedValues, size);
+        }
+        return new PropertyMap(sortedNames, sortedValues);
+    }
+
+    public static PropertyMap copyOf(Map<String, String> properties, SymbolTable symbols) {
+        if (properties.isEmpty()) {
+            return EMPTY;
+        }
+        String[] names = new String[properties.size()];
+        String[] values = new String[properties.size()];
+        int size = 0;
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            names[size] = property.getKey();
+            values[size++] = property.getValue();
+        }
+        return of(Arrays.asList(names), Arrays.asList(values), symbols);
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && Arrays.binarySearch(names, key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int index = Arrays.binarySearch(names, key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (index >= names.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, String> entry = new SimpleImmutableEntry<>(names[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+}
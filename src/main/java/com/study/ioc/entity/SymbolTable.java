@@ -0,0 +1,26 @@
+package com.study.ioc.entity;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// one shared instance per distinct string, so repeated class names, property names and values cost one object;
+// unlike String.intern() the symbols are released together with the table
+public class SymbolTable {
+    private final ConcurrentMap<String, String> symbols = new ConcurrentHashMap<>();
+
+    public String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        String symbol = symbols.get(string);
+        if (symbol != null) {
+            return symbol;
+        }
+        symbol = symbols.putIfAbsent(string, string);
+        return symbol == null ? string : symbol;
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+}
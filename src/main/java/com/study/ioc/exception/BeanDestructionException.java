@@ -0,0 +1,11 @@
+package com.study.ioc.exception;
+
+public class BeanDestructionException extends RuntimeException {
+    public BeanDestructionException(String message) {
+        super(message);
+    }
+
+    public BeanDestructionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
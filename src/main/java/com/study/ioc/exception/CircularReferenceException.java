@@ -0,0 +1,8 @@
+package com.study.ioc.exception;
+
+public class CircularReferenceException extends RuntimeException {
+
+    public CircularReferenceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.study.ioc.exception;
+
+public class ConversionException extends RuntimeException {
+
+    public ConversionException(String message) {
+        super(message);
+    }
+
+    public ConversionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -5,5 +5,9 @@ public class NoSuchBeanDefinitionException extends RuntimeException {
     public NoSuchBeanDefinitionException(String id, String clazzName, String actualClazzName) {
         super("No qualifying bean of type " + clazzName + " with id " + id + " is defined. Bean is of type " + actualClazzName);
     }
+
+    public NoSuchBeanDefinitionException(String message) {
+        super(message);
+    }
 }
 
@@ -2,6 +2,10 @@ package com.study.ioc.exception;
 
 public class PostProcessBeanFactoryException extends RuntimeException {
 
+    public PostProcessBeanFactoryException(String message) {
+        super(message);
+    }
+
     public PostProcessBeanFactoryException (String message, Throwable cause) {
         super(message, cause);
     }
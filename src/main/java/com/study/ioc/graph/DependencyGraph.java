@@ -0,0 +1,112 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.CircularReferenceException;
+
+import java.util.*;
+
+public class DependencyGraph {
+    private final SortedMap<String, SortedSet<String>> dependencies = new TreeMap<>();
+    private final SortedMap<String, SortedSet<String>> dependents = new TreeMap<>();
+
+    public DependencyGraph(Map<String, BeanDefinition> beanDefinitions) {
+        for (String id : beanDefinitions.keySet()) {
+            dependencies.put(id, new TreeSet<>());
+            dependents.put(id, new TreeSet<>());
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+            if (refDependencies != null) {
+                for (String ref : refDependencies.values()) {
+                    addDependency(beanDefinition.getId(), ref);
+                }
+            }
+            for (ConstructorArgument argument : beanDefinition.getConstructorArguments()) {
+                if (argument.isRef()) {
+                    addDependency(beanDefinition.getId(), argument.getRef());
+                }
+            }
+        }
+    }
+
+    // refs to beans outside the map are left to the context to resolve
+    private void addDependency(String id, String ref) {
+        if (dependencies.containsKey(ref)) {
+            dependencies.get(id).add(ref);
+            dependents.get(ref).add(id);
+        }
+    }
+
+    public Set<String> getBeanIds() {
+        return Collections.unmodifiableSet(dependencies.keySet());
+    }
+
+    public Set<String> getDependencies(String id) {
+        return Collections.unmodifiableSet(dependencies.getOrDefault(id, Collections.emptySortedSet()));
+    }
+
+    public Set<String> getDependents(String id) {
+        return Collections.unmodifiableSet(dependents.getOrDefault(id, Collections.emptySortedSet()));
+    }
+
+    // level 0 holds beans without refs, level n beans whose deepest ref is on level n - 1
+    public List<List<String>> getLevels() {
+        Map<String, Integer> remaining = new HashMap<>(dependencies.size());
+        List<String> current = new ArrayList<>();
+        for (Map.Entry<String, SortedSet<String>> entry : dependencies.entrySet()) {
+            remaining.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                current.add(entry.getKey());
+            }
+        }
+
+        List<List<String>> levels = new ArrayList<>();
+        int resolved = 0;
+        while (!current.isEmpty()) {
+            levels.add(Collections.unmodifiableList(current));
+            resolved += current.size();
+            List<String> next = new ArrayList<>();
+            for (String id : current) {
+                for (String dependent : dependents.get(id)) {
+                    if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            Collections.sort(next);
+            current = next;
+        }
+
+        if (resolved != dependencies.size()) {
+            throw new CircularReferenceException("Circular reference between beans: " + findCycle(remaining));
+        }
+        return Collections.unmodifiableList(levels);
+    }
+
+    private String findCycle(Map<String, Integer> remaining) {
+        String start = null;
+        for (Map.Entry<String, SortedSet<String>> entry : dependencies.entrySet()) {
+            if (remaining.get(entry.getKey()) > 0) {
+                start = entry.getKey();
+                break;
+            }
+        }
+        List<String> path = new ArrayList<>();
+        Map<String, Integer> positions = new HashMap<>();
+        String id = start;
+        while (!positions.containsKey(id)) {
+            positions.put(id, path.size());
+            path.add(id);
+            for (String dependency : dependencies.get(id)) {
+                if (remaining.get(dependency) > 0) {
+                    id = dependency;
+                    break;
+                }
+            }
+        }
+        List<String> cycle = new ArrayList<>(path.subList(positions.get(id), path.size()));
+        cycle.add(id);
+        return String.join(" -> ", cycle);
+    }
+}
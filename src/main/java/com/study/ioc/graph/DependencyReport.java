@@ -0,0 +1,369 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+
+import java.util.*;
+
+// what the ref graph tells before any bean is created: refs to undefined beans, cycles, the longest chain of refs,
+// which bounds how parallel a refresh can get, and the beans most others refer to
+public class DependencyReport {
+    public static final int DEFAULT_MIN_FAN_IN = 10;
+
+    private final DependencyGraph graph;
+    private final List<MissingReference> missingReferences;
+    private final List<List<String>> cycles = new ArrayList<>();
+    private final List<String> criticalPath;
+    private int edgeCount;
+
+    // the edges are those of the DependencyGraph a refresh orders its beans by
+    public DependencyReport(Map<String, BeanDefinition> beanDefinitions) {
+        graph = new DependencyGraph(beanDefinitions);
+        for (String id : graph.getBeanIds()) {
+            edgeCount += graph.getDependencies(id).size();
+        }
+        missingReferences = findMissingReferences(beanDefinitions);
+        criticalPath = analyzeComponents();
+    }
+
+    public static void main(String[] args) {
+        String format = "dot";
+        int minFanIn = DEFAULT_MIN_FAN_IN;
+        int first = 0;
+        while (first < args.length && args[first].startsWith("--")) {
+            if (args[first].equals("--json") || args[first].equals("--dot")) {
+                format = args[first++].substring(2);
+            } else if (args[first].equals("--min-fan-in") && first + 1 < args.length) {
+                minFanIn = Integer.parseInt(args[first + 1]);
+                first += 2;
+            } else {
+                first = args.length;
+            }
+        }
+        if (first >= args.length) {
+            System.err.println("Usage: DependencyReport [--dot | --json] [--min-fan-in <n>] <context xml>...");
+            System.exit(1);
+        }
+        String[] paths = Arrays.copyOfRange(args, first, args.length);
+        DependencyReport report = new DependencyReport(new XmlBeanDefinitionReader(paths).getBeanDefinition());
+        System.out.println(format.equals("json") ? report.toJson(minFanIn) : report.toDot(minFanIn));
+    }
+
+    // in bean id order, refs of one bean in property name order followed by constructor arguments
+    public static List<MissingReference> findMissingReferences(Map<String, BeanDefinition> beanDefinitions) {
+        List<MissingReference> missingReferences = new ArrayList<>();
+        for (BeanDefinition beanDefinition : new TreeMap<>(beanDefinitions).values()) {
+            Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+            if (refDependencies != null) {
+                for (Map.Entry<String, String> property : new TreeMap<>(refDependencies).entrySet()) {
+                    if (!beanDefinitions.containsKey(property.getValue())) {
+                        missingReferences.add(new MissingReference(beanDefinition.getId(), property.getKey(), -1, property.getValue()));
+                    }
+                }
+            }
+            List<ConstructorArgument> arguments = beanDefinition.getConstructorArguments();
+            for (int i = 0; i < arguments.size(); i++) {
+                if (arguments.get(i).isRef() && !beanDefinitions.containsKey(arguments.get(i).getRef())) {
+                    missingReferences.add(new MissingReference(beanDefinition.getId(), null, i, arguments.get(i).getRef()));
+                }
+            }
+        }
+        return missingReferences;
+    }
+
+    public int getBeanCount() {
+        return graph.getBeanIds().size();
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public List<MissingReference> getMissingReferences() {
+        return Collections.unmodifiableList(missingReferences);
+    }
+
+    // every group of beans that refer to each other, directly or not, each sorted, a bean referring to itself included
+    public List<List<String>> getCycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+
+    // the number of beans on the longest ref chain, beans of one cycle count once;
+    // a parallel refresh can not finish in fewer steps, however many threads it gets
+    public int getDepth() {
+        return criticalPath.size();
+    }
+
+    // the longest ref chain in creation order, a cycle is represented by its first bean
+    public List<String> getCriticalPath() {
+        return Collections.unmodifiableList(criticalPath);
+    }
+
+    public int getFanIn(String id) {
+        return graph.getDependents(id).size();
+    }
+
+    // most referred to first, ties in id order
+    public List<String> getHotBeans(int minFanIn) {
+        List<String> hotBeans = new ArrayList<>();
+        for (String id : graph.getBeanIds()) {
+            if (getFanIn(id) >= minFanIn) {
+                hotBeans.add(id);
+            }
+        }
+        hotBeans.sort(Comparator.comparingInt(this::getFanIn).reversed().thenComparing(Comparator.naturalOrder()));
+        return hotBeans;
+    }
+
+    // edges point from a bean to the beans it refers to; cycles are red, hot beans filled, missing beans dashed
+    public String toDot(int minFanIn) {
+        Set<String> cycleBeans = new HashSet<>();
+        Map<String, Integer> cycleIndexes = new HashMap<>();
+        for (int i = 0; i < cycles.size(); i++) {
+            for (String id : cycles.get(i)) {
+                cycleBeans.add(id);
+                cycleIndexes.put(id, i);
+            }
+        }
+        Set<String> hotBeans = new HashSet<>(getHotBeans(minFanIn));
+        StringBuilder dot = new StringBuilder("digraph beans {\n");
+        for (String id : graph.getBeanIds()) {
+            List<String> attributes = new ArrayList<>();
+            if (hotBeans.contains(id)) {
+                attributes.add("style=filled");
+                attributes.add("fillcolor=orange");
+                attributes.add("xlabel=\"" + getFanIn(id) + "\"");
+            }
+            if (cycleBeans.contains(id)) {
+                attributes.add("color=red");
+            }
+            dot.append("    ").append(quote(id));
+            if (!attributes.isEmpty()) {
+                dot.append(" [").append(String.join(", ", attributes)).append(']');
+            }
+            dot.append(";\n");
+        }
+        for (String id : graph.getBeanIds()) {
+            for (String dependency : graph.getDependencies(id)) {
+                dot.append("    ").append(quote(id)).append(" -> ").append(quote(dependency));
+                Integer cycle = cycleIndexes.get(id);
+                if (cycle != null && cycle.equals(cycleIndexes.get(dependency))) {
+                    dot.append(" [color=red]");
+                }
+                dot.append(";\n");
+            }
+        }
+        Set<String> missingBeans = new TreeSet<>();
+        for (MissingReference missingReference : missingReferences) {
+            missingBeans.add(missingReference.getRef());
+        }
+        for (String missingBean : missingBeans) {
+            dot.append("    ").append(quote(missingBean)).append(" [style=dashed, color=red];\n");
+        }
+        for (MissingReference missingReference : missingReferences) {
+            dot.append("    ").append(quote(missingReference.getBeanId())).append(" -> ").append(quote(missingReference.getRef()))
+                    .append(" [style=dashed, color=red];\n");
+        }
+        return dot.append("}").toString();
+    }
+
+    public String toJson(int minFanIn) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"beans\": ").append(getBeanCount()).append(",\n");
+        json.append("  \"edges\": ").append(edgeCount).append(",\n");
+        json.append("  \"depth\": ").append(getDepth()).append(",\n");
+        json.append("  \"criticalPath\": ").append(toJsonArray(criticalPath)).append(",\n");
+        json.append("  \"missingRefs\": [");
+        for (int i = 0; i < missingReferences.size(); i++) {
+            MissingReference missingReference = missingReferences.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"bean\": ").append(quote(missingReference.getBeanId()));
+            if (missingReference.getProperty() != null) {
+                json.append(", \"property\": ").append(quote(missingReference.getProperty()));
+            } else {
+                json.append(", \"constructorArgument\": ").append(missingReference.getArgumentIndex());
+            }
+            json.append(", \"ref\": ").append(quote(missingReference.getRef())).append('}');
+        }
+        json.append(missingReferences.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"cycles\": [");
+        for (int i = 0; i < cycles.size(); i++) {
+            json.append(i == 0 ? "\n    " : ",\n    ").append(toJsonArray(cycles.get(i)));
+        }
+        json.append(cycles.isEmpty() ? "],\n" : "\n  ],\n");
+        json.append("  \"hotBeans\": [");
+        List<String> hotBeans = getHotBeans(minFanIn);
+        for (int i = 0; i < hotBeans.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"bean\": ").append(quote(hotBeans.get(i)))
+                    .append(", \"fanIn\": ").append(getFanIn(hotBeans.get(i))).append('}');
+        }
+        json.append(hotBeans.isEmpty() ? "]\n" : "\n  ]\n");
+        return json.append("}").toString();
+    }
+
+    // Tarjan's strongly connected components, iterative so that a long ref chain does not overflow the stack;
+    // a component is completed only after every component it refers to, so depths are known when they are needed
+    private List<String> analyzeComponents() {
+        int beanCount = getBeanCount();
+        Map<String, Integer> indexes = new HashMap<>(beanCount * 4 / 3 + 1);
+        Map<String, Integer> lowLinks = new HashMap<>(beanCount * 4 / 3 + 1);
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        Map<String, String> components = new HashMap<>(beanCount * 4 / 3 + 1);
+        // per component: its depth and the component after it on its longest chain
+        Map<String, Integer> depths = new HashMap<>();
+        Map<String, String> next = new HashMap<>();
+
+        Deque<String> callStack = new ArrayDeque<>();
+        Map<String, Iterator<String>> pending = new HashMap<>();
+        for (String root : graph.getBeanIds()) {
+            if (indexes.containsKey(root)) {
+                continue;
+            }
+            callStack.push(root);
+            while (!callStack.isEmpty()) {
+                String id = callStack.peek();
+                Iterator<String> refs = pending.get(id);
+                if (refs == null) {
+                    indexes.put(id, indexes.size());
+                    lowLinks.put(id, indexes.get(id));
+                    stack.push(id);
+                    onStack.add(id);
+                    refs = graph.getDependencies(id).iterator();
+                    pending.put(id, refs);
+                }
+                if (refs.hasNext()) {
+                    String ref = refs.next();
+                    if (!indexes.containsKey(ref)) {
+                        callStack.push(ref);
+                    } else if (onStack.contains(ref)) {
+                        lowLinks.put(id, Math.min(lowLinks.get(id), indexes.get(ref)));
+                    }
+                    continue;
+                }
+                callStack.pop();
+                pending.remove(id);
+                if (!callStack.isEmpty()) {
+                    String caller = callStack.peek();
+                    lowLinks.put(caller, Math.min(lowLinks.get(caller), lowLinks.get(id)));
+                }
+                if (lowLinks.get(id).equals(indexes.get(id))) {
+                    completeComponent(id, stack, onStack, components, depths, next);
+                }
+            }
+        }
+        cycles.sort(Comparator.comparing(cycle -> cycle.get(0)));
+
+        String deepest = null;
+        for (String component : new TreeSet<>(depths.keySet())) {
+            if (deepest == null || depths.get(component) > depths.get(deepest)) {
+                deepest = component;
+            }
+        }
+        LinkedList<String> path = new LinkedList<>();
+        for (String component = deepest; component != null; component = next.get(component)) {
+            path.addFirst(component);
+        }
+        return path;
+    }
+
+    private void completeComponent(String root, Deque<String> stack, Set<String> onStack, Map<String, String> components,
+                                   Map<String, Integer> depths, Map<String, String> next) {
+        List<String> members = new ArrayList<>();
+        String member;
+        do {
+            member = stack.pop();
+            onStack.remove(member);
+            members.add(member);
+        } while (!member.equals(root));
+        Collections.sort(members);
+        String component = members.get(0);
+        for (String id : members) {
+            components.put(id, component);
+        }
+        if (members.size() > 1 || graph.getDependencies(root).contains(root)) {
+            cycles.add(Collections.unmodifiableList(members));
+        }
+
+        int depth = 0;
+        String deepestRef = null;
+        for (String id : members) {
+            for (String ref : graph.getDependencies(id)) {
+                String refComponent = components.get(ref);
+                if (refComponent.equals(component)) {
+                    continue;
+                }
+                int refDepth = depths.get(refComponent);
+                if (refDepth > depth || (refDepth == depth && refComponent.compareTo(deepestRef) < 0)) {
+                    depth = refDepth;
+                    deepestRef = refComponent;
+                }
+            }
+        }
+        depths.put(component, depth + 1);
+        if (deepestRef != null) {
+            next.put(component, deepestRef);
+        }
+    }
+
+    private static String toJsonArray(List<String> strings) {
+        StringJoiner array = new StringJoiner(", ", "[", "]");
+        for (String string : strings) {
+            array.add(quote(string));
+        }
+        return array.toString();
+    }
+
+    // valid both as a JSON string and as a DOT id
+    private static String quote(String string) {
+        StringBuilder quoted = new StringBuilder(string.length() + 2).append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    public static class MissingReference {
+        private final String beanId;
+        private final String property;
+        private final int argumentIndex;
+        private final String ref;
+
+        // property is null for a constructor argument, argumentIndex is -1 for a property
+        public MissingReference(String beanId, String property, int argumentIndex, String ref) {
+            this.beanId = beanId;
+            this.property = property;
+            this.argumentIndex = argumentIndex;
+            this.ref = ref;
+        }
+
+        public String getBeanId() {
+            return beanId;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public int getArgumentIndex() {
+            return argumentIndex;
+        }
+
+        public String getRef() {
+            return ref;
+        }
+
+        @Override
+        public String toString() {
+            return "Bean " + beanId + " refers to undefined bean " + ref + " in "
+                    + (property != null ? "property " + property : "constructor argument " + argumentIndex);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.study.ioc.metrics;
+
+public enum BeanStep {
+    CLASS_LOAD, CONSTRUCT, INJECT_VALUE, INJECT_REF, INITIALIZE, DESTROY
+}
@@ -0,0 +1,56 @@
+package com.study.ioc.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BeanTiming {
+    private final String beanId;
+    private final long classLoadNanos;
+    private final long constructNanos;
+    private final Map<String, Long> injectionNanos;
+    private final long initializeNanos;
+    private final long destroyNanos;
+
+    public BeanTiming(String beanId, long classLoadNanos, long constructNanos, Map<String, Long> injectionNanos,
+                      long initializeNanos, long destroyNanos) {
+        this.beanId = beanId;
+        this.classLoadNanos = classLoadNanos;
+        this.constructNanos = constructNanos;
+        this.injectionNanos = Collections.unmodifiableMap(new LinkedHashMap<>(injectionNanos));
+        this.initializeNanos = initializeNanos;
+        this.destroyNanos = destroyNanos;
+    }
+
+    public String getBeanId() {
+        return beanId;
+    }
+
+    public long getClassLoadNanos() {
+        return classLoadNanos;
+    }
+
+    public long getConstructNanos() {
+        return constructNanos;
+    }
+
+    public Map<String, Long> getInjectionNanos() {
+        return injectionNanos;
+    }
+
+    public long getInitializeNanos() {
+        return initializeNanos;
+    }
+
+    public long getDestroyNanos() {
+        return destroyNanos;
+    }
+
+    public long getTotalNanos() {
+        long total = classLoadNanos + constructNanos + initializeNanos;
+        for (long nanos : injectionNanos.values()) {
+            total += nanos;
+        }
+        return total;
+    }
+}
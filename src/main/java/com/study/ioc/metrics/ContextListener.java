@@ -0,0 +1,13 @@
+package com.study.ioc.metrics;
+
+// callbacks are made from the refreshing threads and from every getBean caller, implementations must be thread safe
+public interface ContextListener {
+    default void onPhase(RefreshPhase phase, long nanos) {
+    }
+
+    default void onBeanStep(String beanId, BeanStep step, String propertyName, long nanos) {
+    }
+
+    default void onLookup(LookupKind kind, boolean found, long nanos) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.study.ioc.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ContextMetrics implements ContextListener, ContextMetricsMXBean {
+    private static final int SLOWEST_BEANS = 20;
+
+    private final Map<RefreshPhase, Long> phaseNanos = new ConcurrentHashMap<>();
+    private final Map<String, BeanRecord> beanRecords = new ConcurrentHashMap<>();
+    private final Map<LookupKind, LookupRecord> lookupRecords = new EnumMap<>(LookupKind.class);
+
+    public ContextMetrics() {
+        for (LookupKind kind : LookupKind.values()) {
+            lookupRecords.put(kind, new LookupRecord());
+        }
+    }
+
+    @Override
+    public void onPhase(RefreshPhase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    @Override
+    public void onBeanStep(String beanId, BeanStep step, String propertyName, long nanos) {
+        BeanRecord record = beanRecords.computeIfAbsent(beanId, id -> new BeanRecord());
+        synchronized (record) {
+            if (step == BeanStep.CLASS_LOAD) {
+                record.classLoadNanos += nanos;
+            } else if (step == BeanStep.CONSTRUCT) {
+                record.constructNanos += nanos;
+            } else if (step == BeanStep.INITIALIZE) {
+                record.initializeNanos += nanos;
+            } else if (step == BeanStep.DESTROY) {
+                record.destroyNanos += nanos;
+            } else {
+                record.injectionNanos.merge(propertyName, nanos, Long::sum);
+            }
+        }
+    }
+
+    @Override
+    public void onLookup(LookupKind kind, boolean found, long nanos) {
+        LookupRecord record = lookupRecords.get(kind);
+        record.count.increment();
+        if (!found) {
+            record.misses.increment();
+        }
+        record.latency.record(nanos);
+    }
+
+    public ContextMetricsSnapshot snapshot() {
+        List<BeanTiming> beanTimings = new ArrayList<>(beanRecords.size());
+        for (Map.Entry<String, BeanRecord> entry : beanRecords.entrySet()) {
+            BeanRecord record = entry.getValue();
+            synchronized (record) {
+                beanTimings.add(new BeanTiming(entry.getKey(), record.classLoadNanos, record.constructNanos, record.injectionNanos,
+                        record.initializeNanos, record.destroyNanos));
+            }
+        }
+        beanTimings.sort(Comparator.comparingLong(BeanTiming::getTotalNanos).reversed().thenComparing(BeanTiming::getBeanId));
+
+        Map<LookupKind, Long> lookups = new EnumMap<>(LookupKind.class);
+        Map<LookupKind, Long> misses = new EnumMap<>(LookupKind.class);
+        Map<LookupKind, Long> p50Nanos = new EnumMap<>(LookupKind.class);
+        Map<LookupKind, Long> p99Nanos = new EnumMap<>(LookupKind.class);
+        for (Map.Entry<LookupKind, LookupRecord> entry : lookupRecords.entrySet()) {
+            lookups.put(entry.getKey(), entry.getValue().count.sum());
+            misses.put(entry.getKey(), entry.getValue().misses.sum());
+            p50Nanos.put(entry.getKey(), entry.getValue().latency.getPercentile(50));
+            p99Nanos.put(entry.getKey(), entry.getValue().latency.getPercentile(99));
+        }
+        Map<RefreshPhase, Long> phases = new EnumMap<>(RefreshPhase.class);
+        phases.putAll(phaseNanos);
+        return new ContextMetricsSnapshot(phases, beanTimings, lookups, misses, p50Nanos, p99Nanos);
+    }
+
+    public ObjectName registerMBean(String contextName) throws JMException {
+        ObjectName objectName = new ObjectName("com.study.ioc:type=ContextMetrics,name=" + ObjectName.quote(contextName));
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        mBeanServer.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseMillis() {
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        for (Map.Entry<RefreshPhase, Long> entry : snapshot().getPhaseNanos().entrySet()) {
+            phaseMillis.put(entry.getKey().name(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+        }
+        return phaseMillis;
+    }
+
+    @Override
+    public List<String> getSlowestBeans() {
+        List<String> slowestBeans = new ArrayList<>();
+        for (BeanTiming beanTiming : snapshot().getBeanTimings()) {
+            if (slowestBeans.size() == SLOWEST_BEANS) {
+                break;
+            }
+            slowestBeans.add(beanTiming.getBeanId() + " " + TimeUnit.NANOSECONDS.toMicros(beanTiming.getTotalNanos()) + "us");
+        }
+        return slowestBeans;
+    }
+
+    @Override
+    public Map<String, Long> getLookupCounts() {
+        return byName(snapshot().getLookups());
+    }
+
+    @Override
+    public Map<String, Long> getLookupMisses() {
+        return byName(snapshot().getMisses());
+    }
+
+    @Override
+    public Map<String, Long> getLookupP99Nanos() {
+        return byName(snapshot().getP99Nanos());
+    }
+
+    @Override
+    public void reset() {
+        phaseNanos.clear();
+        beanRecords.clear();
+        for (LookupRecord record : lookupRecords.values()) {
+            record.count.reset();
+            record.misses.reset();
+            record.latency.reset();
+        }
+    }
+
+    private Map<String, Long> byName(Map<LookupKind, Long> values) {
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (Map.Entry<LookupKind, Long> entry : values.entrySet()) {
+            byName.put(entry.getKey().name(), entry.getValue());
+        }
+        return byName;
+    }
+
+    private static class BeanRecord {
+        private long classLoadNanos;
+        private long constructNanos;
+        private long initializeNanos;
+        private long destroyNanos;
+        private final Map<String, Long> injectionNanos = new LinkedHashMap<>();
+    }
+
+    private static class LookupRecord {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
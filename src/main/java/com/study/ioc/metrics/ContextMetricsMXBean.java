@@ -0,0 +1,18 @@
+package com.study.ioc.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ContextMetricsMXBean {
+    Map<String, Long> getPhaseMillis();
+
+    List<String> getSlowestBeans();
+
+    Map<String, Long> getLookupCounts();
+
+    Map<String, Long> getLookupMisses();
+
+    Map<String, Long> getLookupP99Nanos();
+
+    void reset();
+}
@@ -0,0 +1,47 @@
+package com.study.ioc.metrics;
+
+import java.util.*;
+
+public class ContextMetricsSnapshot {
+    private final Map<RefreshPhase, Long> phaseNanos;
+    private final List<BeanTiming> beanTimings;
+    private final Map<LookupKind, Long> lookups;
+    private final Map<LookupKind, Long> misses;
+    private final Map<LookupKind, Long> p50Nanos;
+    private final Map<LookupKind, Long> p99Nanos;
+
+    ContextMetricsSnapshot(Map<RefreshPhase, Long> phaseNanos, List<BeanTiming> beanTimings, Map<LookupKind, Long> lookups,
+                           Map<LookupKind, Long> misses, Map<LookupKind, Long> p50Nanos, Map<LookupKind, Long> p99Nanos) {
+        this.phaseNanos = Collections.unmodifiableMap(phaseNanos);
+        this.beanTimings = Collections.unmodifiableList(beanTimings);
+        this.lookups = Collections.unmodifiableMap(lookups);
+        this.misses = Collections.unmodifiableMap(misses);
+        this.p50Nanos = Collections.unmodifiableMap(p50Nanos);
+        this.p99Nanos = Collections.unmodifiableMap(p99Nanos);
+    }
+
+    public Map<RefreshPhase, Long> getPhaseNanos() {
+        return phaseNanos;
+    }
+
+    // slowest first
+    public List<BeanTiming> getBeanTimings() {
+        return beanTimings;
+    }
+
+    public Map<LookupKind, Long> getLookups() {
+        return lookups;
+    }
+
+    public Map<LookupKind, Long> getMisses() {
+        return misses;
+    }
+
+    public Map<LookupKind, Long> getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public Map<LookupKind, Long> getP99Nanos() {
+        return p99Nanos;
+    }
+}
@@ -0,0 +1,5 @@
+package com.study.ioc.metrics;
+
+public enum LookupKind {
+    BY_ID, BY_TYPE, BY_ID_AND_TYPE, ALL_OF_TYPE
+}
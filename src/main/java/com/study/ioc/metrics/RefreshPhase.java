@@ -0,0 +1,5 @@
+package com.study.ioc.metrics;
+
+public enum RefreshPhase {
+    READ_DEFINITIONS, POST_PROCESS_DEFINITIONS, CREATE_BEANS, INJECT_VALUES, INJECT_REFS, INITIALIZE, REFRESH
+}
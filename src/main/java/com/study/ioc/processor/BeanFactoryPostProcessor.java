@@ -0,0 +1,11 @@
+package com.study.ioc.processor;
+
+import com.study.ioc.entity.BeanDefinition;
+
+import java.util.Map;
+
+// may add, remove or change definitions before any bean is instantiated;
+// the property maps and constructor argument lists of the definitions passed in can be changed in place
+public interface BeanFactoryPostProcessor {
+    void postProcessBeanFactory(Map<String, BeanDefinition> beanDefinitions);
+}
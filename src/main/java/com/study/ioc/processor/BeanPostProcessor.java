@@ -0,0 +1,17 @@
+package com.study.ioc.processor;
+
+public interface BeanPostProcessor {
+
+    // asked once per bean class, processors that return false are never called for beans of that class
+    default boolean supports(Class<?> beanClass) {
+        return true;
+    }
+
+    default Object postProcessBeforeInitialization(Object bean, String beanId) {
+        return bean;
+    }
+
+    default Object postProcessAfterInitialization(Object bean, String beanId) {
+        return bean;
+    }
+}
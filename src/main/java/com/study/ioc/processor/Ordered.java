@@ -0,0 +1,11 @@
+package com.study.ioc.processor;
+
+import java.util.Comparator;
+
+// processors run in ascending order, processors that are not Ordered run last in registration order
+public interface Ordered {
+    Comparator<Object> COMPARATOR = Comparator.comparingInt(
+            processor -> processor instanceof Ordered ? ((Ordered) processor).getOrder() : Integer.MAX_VALUE);
+
+    int getOrder();
+}
@@ -1,9 +1,22 @@
 package com.study.ioc.reader;
 
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.resource.Resource;
 
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BeanDefinitionReader {
     Map<String, BeanDefinition> getBeanDefinition();
+
+    // hands the definitions over one by one, readers that parse incrementally override it to not build the whole map
+    default void readBeanDefinitions(Consumer<BeanDefinition> consumer) {
+        getBeanDefinition().values().forEach(consumer);
+    }
+
+    // the files the definitions are read from, null when they depend on anything else and can not be cached
+    default List<Resource> getResources() {
+        return null;
+    }
 }
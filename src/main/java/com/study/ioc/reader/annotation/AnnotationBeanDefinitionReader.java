@@ -0,0 +1,245 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.ioc.annotation.Component;
+import com.study.ioc.annotation.Inject;
+import com.study.ioc.annotation.Value;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.resource.Resource;
+import com.study.ioc.resource.ResourceLoader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// reads @Component classes of the given packages, from the index written by ComponentIndexProcessor when there is one
+public class AnnotationBeanDefinitionReader implements BeanDefinitionReader {
+    public static final String INDEX_LOCATION = "META-INF/ioc.components";
+    static final String COMPONENT_ANNOTATION = "com.study.ioc.annotation.Component";
+    private static final String COMPONENT_DESCRIPTOR = "L" + COMPONENT_ANNOTATION.replace('.', '/') + ";";
+
+    private final String[] basePackages;
+    private ClassLoader classLoader = AnnotationBeanDefinitionReader.class.getClassLoader();
+
+    public AnnotationBeanDefinitionReader(String... basePackages) {
+        this.basePackages = basePackages;
+    }
+
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public Map<String, BeanDefinition> getBeanDefinition() {
+        Set<String> classNames = readIndex();
+        if (classNames == null) {
+            classNames = scanClassPath();
+        }
+        List<Class<?>> componentClasses = new ArrayList<>();
+        for (String className : classNames) {
+            if (isInBasePackage(className)) {
+                Class<?> componentClass = loadClass(className);
+                if (componentClass.isAnnotationPresent(Component.class)
+                        && !componentClass.isInterface() && !Modifier.isAbstract(componentClass.getModifiers())) {
+                    componentClasses.add(componentClass);
+                }
+            }
+        }
+
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        for (Class<?> componentClass : componentClasses) {
+            BeanDefinition beanDefinition = createBeanDefinition(componentClass, componentClasses);
+            if (beanDefinitionMap.put(beanDefinition.getId(), beanDefinition) != null) {
+                throw new ParseContextException("Duplicate bean id " + beanDefinition.getId());
+            }
+        }
+        return beanDefinitionMap;
+    }
+
+    // null when no index is on the class path
+    Set<String> readIndex() {
+        try {
+            List<URL> indexes = Collections.list(classLoader.getResources(INDEX_LOCATION));
+            if (indexes.isEmpty()) {
+                return null;
+            }
+            Set<String> classNames = new TreeSet<>();
+            for (URL index : indexes) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.trim().isEmpty()) {
+                            classNames.add(line.trim());
+                        }
+                    }
+                }
+            }
+            return classNames;
+        } catch (IOException e) {
+            throw new ParseContextException("Can not read component index", e);
+        }
+    }
+
+    // only class files referring to @Component in their constant pool are loaded
+    Set<String> scanClassPath() {
+        ResourceLoader resourceLoader = new ResourceLoader(classLoader);
+        List<Resource> classFiles = new ArrayList<>();
+        try {
+            for (String basePackage : basePackages) {
+                classFiles.addAll(resourceLoader.getResources(
+                        ResourceLoader.CLASSPATH_ALL_PREFIX + basePackage.replace('.', '/') + "/**/*.class"));
+            }
+            return classFiles.parallelStream()
+                    .map(AnnotationBeanDefinitionReader::getComponentClassName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(TreeSet::new));
+        } catch (IOException | UncheckedIOException e) {
+            throw new ParseContextException("Can not scan class path for components", e);
+        }
+    }
+
+    private boolean isInBasePackage(String className) {
+        for (String basePackage : basePackages) {
+            if (className.startsWith(basePackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new ParseContextException("Can not load component " + className, e);
+        }
+    }
+
+    private BeanDefinition createBeanDefinition(Class<?> componentClass, List<Class<?>> componentClasses) {
+        Component component = componentClass.getAnnotation(Component.class);
+        BeanDefinition beanDefinition = new BeanDefinition(getComponentId(componentClass), componentClass.getName());
+        beanDefinition.setScope(component.scope());
+        beanDefinition.setLazyInit(component.lazyInit());
+        beanDefinition.setPoolSize(component.poolSize());
+        beanDefinition.setPoolMaxIdleMillis(component.poolMaxIdleMillis());
+        Map<String, String> valueDependencies = new HashMap<>();
+        Map<String, String> refDependencies = new HashMap<>();
+        for (Class<?> clazz = componentClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                addProperty(field, field.getName(), field.getType(), valueDependencies, refDependencies, componentClasses);
+            }
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getParameterCount() == 1 && method.getName().startsWith("set") && method.getName().length() > 3) {
+                    addProperty(method, getPropertyName(method), method.getParameterTypes()[0],
+                            valueDependencies, refDependencies, componentClasses);
+                }
+            }
+        }
+        beanDefinition.setValueDependencies(valueDependencies);
+        beanDefinition.setRefDependencies(refDependencies);
+        return beanDefinition;
+    }
+
+    private void addProperty(AccessibleObject member, String propertyName, Class<?> propertyType, Map<String, String> valueDependencies,
+                             Map<String, String> refDependencies, List<Class<?>> componentClasses) {
+        Value value = member.getAnnotation(Value.class);
+        if (value != null) {
+            valueDependencies.putIfAbsent(propertyName, value.value());
+        }
+        Inject inject = member.getAnnotation(Inject.class);
+        if (inject != null) {
+            String ref = inject.value().isEmpty() ? findComponentId(propertyType, propertyName, componentClasses) : inject.value();
+            refDependencies.putIfAbsent(propertyName, ref);
+        }
+    }
+
+    private String findComponentId(Class<?> propertyType, String propertyName, List<Class<?>> componentClasses) {
+        Class<?> match = null;
+        for (Class<?> componentClass : componentClasses) {
+            if (propertyType.isAssignableFrom(componentClass)) {
+                if (match != null) {
+                    return propertyName;
+                }
+                match = componentClass;
+            }
+        }
+        return match == null ? propertyName : getComponentId(match);
+    }
+
+    static String getComponentId(Class<?> componentClass) {
+        String id = componentClass.getAnnotation(Component.class).value();
+        if (!id.isEmpty()) {
+            return id;
+        }
+        String simpleName = componentClass.getSimpleName();
+        return Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
+    }
+
+    private static String getPropertyName(Method setter) {
+        String name = setter.getName().substring(3);
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    // reads the constant pool only, returns the class name when @Component is referenced,
+    // which is a candidate only as the descriptor also appears in signatures and debug information
+    static String getComponentClassName(Resource classFile) {
+        try (InputStream inputStream = classFile.getInputStream();
+             DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream))) {
+            if (input.readInt() != 0xCAFEBABE) {
+                return null;
+            }
+            input.skipBytes(4);
+            int constantCount = input.readUnsignedShort();
+            String[] utf8Constants = new String[constantCount];
+            int[] classConstants = new int[constantCount];
+            boolean component = false;
+            for (int i = 1; i < constantCount; i++) {
+                int tag = input.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        utf8Constants[i] = input.readUTF();
+                        component |= COMPONENT_DESCRIPTOR.equals(utf8Constants[i]);
+                        break;
+                    case 7:
+                        classConstants[i] = input.readUnsignedShort();
+                        break;
+                    case 8: case 16: case 19: case 20:
+                        input.skipBytes(2);
+                        break;
+                    case 15:
+                        input.skipBytes(3);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        input.skipBytes(4);
+                        break;
+                    case 5: case 6:
+                        input.skipBytes(8);
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag + " in " + classFile.getDescription());
+                }
+            }
+            if (!component) {
+                return null;
+            }
+            input.skipBytes(2);
+            return utf8Constants[classConstants[input.readUnsignedShort()]].replace('/', '.');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
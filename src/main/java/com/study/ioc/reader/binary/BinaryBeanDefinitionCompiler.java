@@ -0,0 +1,147 @@
+package com.study.ioc.reader.binary;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.study.ioc.reader.binary.BinaryFormat.*;
+
+public class BinaryBeanDefinitionCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BinaryBeanDefinitionCompiler <output file> <context xml>...");
+            System.exit(1);
+        }
+        String[] paths = Arrays.copyOfRange(args, 1, args.length);
+        new BinaryBeanDefinitionCompiler().compile(new XmlBeanDefinitionReader(paths).getBeanDefinition(), Paths.get(args[0]));
+    }
+
+    public void compile(Map<String, BeanDefinition> beanDefinitions, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = compile(beanDefinitions);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    ByteBuffer compile(Map<String, BeanDefinition> beanDefinitions) {
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        List<BeanDefinition> sortedDefinitions = new ArrayList<>(beanDefinitions.values());
+        sortedDefinitions.sort(Comparator.comparing(BeanDefinition::getId));
+
+        int propertyCount = 0;
+        for (BeanDefinition beanDefinition : sortedDefinitions) {
+            propertyCount += size(beanDefinition.getValueDependencies()) + size(beanDefinition.getRefDependencies())
+                    + size(beanDefinition.getConstructorArguments());
+        }
+
+        ByteBuffer records = ByteBuffer.allocate(sortedDefinitions.size() * BEAN_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer properties = ByteBuffer.allocate(propertyCount * PROPERTY_RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int property = 0;
+        for (BeanDefinition beanDefinition : sortedDefinitions) {
+            records.putInt(intern(beanDefinition.getId(), stringIndexes, strings));
+            records.putInt(intern(beanDefinition.getClassName(), stringIndexes, strings));
+            records.putInt(intern(beanDefinition.getScope(), stringIndexes, strings));
+            records.putInt(intern(beanDefinition.getInitMethod(), stringIndexes, strings));
+            records.putInt(intern(beanDefinition.getDestroyMethod(), stringIndexes, strings));
+            records.putInt(beanDefinition.isLazyInit() ? FLAG_LAZY_INIT : 0);
+            records.putInt(property);
+            records.putShort((short) size(beanDefinition.getValueDependencies()));
+            records.putShort((short) size(beanDefinition.getRefDependencies()));
+            records.putShort((short) size(beanDefinition.getConstructorArguments()));
+            records.putShort((short) 0);
+            records.putInt(beanDefinition.getPoolSize());
+            records.putLong(beanDefinition.getPoolMaxIdleMillis());
+            property += putProperties(beanDefinition.getValueDependencies(), properties, stringIndexes, strings);
+            property += putProperties(beanDefinition.getRefDependencies(), properties, stringIndexes, strings);
+            for (ConstructorArgument argument : beanDefinition.getConstructorArguments()) {
+                properties.putInt(intern(argument.getValue(), stringIndexes, strings));
+                properties.putInt(intern(argument.getRef(), stringIndexes, strings));
+                property++;
+            }
+        }
+
+        int stringDataLength = 0;
+        for (byte[] string : strings) {
+            stringDataLength += string.length;
+        }
+        int size = HEADER_SIZE + (strings.size() + 1) * 4 + records.capacity() + properties.capacity() + stringDataLength;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(strings.size());
+        buffer.putInt(sortedDefinitions.size());
+        buffer.putInt(propertyCount);
+        buffer.putInt(stringDataLength);
+        int offset = 0;
+        for (byte[] string : strings) {
+            buffer.putInt(offset);
+            offset += string.length;
+        }
+        buffer.putInt(offset);
+        records.flip();
+        properties.flip();
+        buffer.put(records);
+        buffer.put(properties);
+        for (byte[] string : strings) {
+            buffer.put(string);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private int putProperties(Map<String, String> dependencies, ByteBuffer properties,
+                              Map<String, Integer> stringIndexes, List<byte[]> strings) {
+        if (dependencies == null) {
+            return 0;
+        }
+        for (Map.Entry<String, String> dependency : new TreeMap<>(dependencies).entrySet()) {
+            properties.putInt(intern(dependency.getKey(), stringIndexes, strings));
+            properties.putInt(intern(dependency.getValue(), stringIndexes, strings));
+        }
+        return dependencies.size();
+    }
+
+    private int intern(String string, Map<String, Integer> stringIndexes, List<byte[]> strings) {
+        if (string == null) {
+            return NO_STRING;
+        }
+        Integer index = stringIndexes.get(string);
+        if (index == null) {
+            index = strings.size();
+            stringIndexes.put(string, index);
+            strings.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    private int size(Map<String, String> dependencies) {
+        return size(dependencies == null ? 0 : dependencies.size());
+    }
+
+    private int size(List<ConstructorArgument> constructorArguments) {
+        return size(constructorArguments == null ? 0 : constructorArguments.size());
+    }
+
+    private int size(int size) {
+        if (size > 0xFFFF) {
+            throw new IllegalArgumentException("Too many properties in one bean: " + size);
+        }
+        return size;
+    }
+}
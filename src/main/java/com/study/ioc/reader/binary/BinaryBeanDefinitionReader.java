@@ -0,0 +1,170 @@
+package com.study.ioc.reader.binary;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PropertyMap;
+import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.resource.FileSystemResource;
+import com.study.ioc.resource.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.ioc.reader.binary.BinaryFormat.*;
+
+public class BinaryBeanDefinitionReader implements BeanDefinitionReader {
+    private final Path path;
+
+    public BinaryBeanDefinitionReader(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Map<String, BeanDefinition> getBeanDefinition() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return getBeanDefinitionMap(buffer);
+        } catch (IOException e) {
+            throw new ParseContextException("Context read failed for " + path, e);
+        }
+    }
+
+    @Override
+    public List<Resource> getResources() {
+        return Collections.singletonList(new FileSystemResource(path));
+    }
+
+    Map<String, BeanDefinition> getBeanDefinitionMap(ByteBuffer buffer) {
+        return new Decoder(buffer.order(ByteOrder.LITTLE_ENDIAN)).decode();
+    }
+
+    // strings are decoded on first use, so repeated class names and values are decoded and held once;
+    // every count, index and offset is checked against the file, a corrupt one fails as ParseContextException
+    private static class Decoder {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private final int beanCount;
+        private final int propertyCount;
+        private final int stringDataLength;
+        private final int offsetsStart;
+        private final int recordsStart;
+        private final int propertiesStart;
+        private final int stringDataStart;
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new ParseContextException("Not a compiled bean definition file");
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new ParseContextException("Unsupported compiled bean definition version " + buffer.getShort(4));
+            }
+            int stringCount = buffer.getInt(8);
+            beanCount = buffer.getInt(12);
+            propertyCount = buffer.getInt(16);
+            stringDataLength = buffer.getInt(20);
+            if (stringCount < 0 || beanCount < 0 || propertyCount < 0 || stringDataLength < 0) {
+                throw new ParseContextException("Corrupt compiled bean definition file");
+            }
+            // in longs, so that huge counts in a corrupt header cannot overflow into a plausible size
+            long size = HEADER_SIZE + (stringCount + 1L) * 4 + (long) beanCount * BEAN_RECORD_SIZE
+                    + (long) propertyCount * PROPERTY_RECORD_SIZE + stringDataLength;
+            if (buffer.limit() != size) {
+                throw new ParseContextException("Truncated compiled bean definition file");
+            }
+            strings = new String[stringCount];
+            offsetsStart = HEADER_SIZE;
+            recordsStart = offsetsStart + (stringCount + 1) * 4;
+            propertiesStart = recordsStart + beanCount * BEAN_RECORD_SIZE;
+            stringDataStart = propertiesStart + propertyCount * PROPERTY_RECORD_SIZE;
+        }
+
+        Map<String, BeanDefinition> decode() {
+            Map<String, BeanDefinition> beanDefinitions = new HashMap<>(beanCount * 4 / 3 + 1);
+            for (int i = 0; i < beanCount; i++) {
+                int record = recordsStart + i * BEAN_RECORD_SIZE;
+                BeanDefinition beanDefinition = new BeanDefinition(string(buffer.getInt(record)), string(buffer.getInt(record + 4)));
+                beanDefinition.setScope(string(buffer.getInt(record + 8)));
+                beanDefinition.setInitMethod(string(buffer.getInt(record + 12)));
+                beanDefinition.setDestroyMethod(string(buffer.getInt(record + 16)));
+                beanDefinition.setLazyInit((buffer.getInt(record + 20) & FLAG_LAZY_INIT) != 0);
+                int firstProperty = buffer.getInt(record + 24);
+                int valueCount = buffer.getShort(record + 28) & 0xFFFF;
+                int refCount = buffer.getShort(record + 30) & 0xFFFF;
+                int constructorArgumentCount = buffer.getShort(record + 32) & 0xFFFF;
+                if (firstProperty < 0 || (long) firstProperty + valueCount + refCount + constructorArgumentCount > propertyCount) {
+                    throw new ParseContextException("Corrupt compiled bean definition file: properties of bean "
+                            + beanDefinition.getId() + " are out of range");
+                }
+                beanDefinition.setValueDependencies(properties(firstProperty, valueCount));
+                beanDefinition.setRefDependencies(properties(firstProperty + valueCount, refCount));
+                if (constructorArgumentCount > 0) {
+                    beanDefinition.setConstructorArguments(
+                            constructorArguments(firstProperty + valueCount + refCount, constructorArgumentCount));
+                }
+                beanDefinition.setPoolSize(buffer.getInt(record + 36));
+                beanDefinition.setPoolMaxIdleMillis(buffer.getLong(record + 40));
+                beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            }
+            return beanDefinitions;
+        }
+
+        private Map<String, String> properties(int first, int count) {
+            String[] names = new String[count];
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                int property = (int) (propertiesStart + ((long) first + i) * PROPERTY_RECORD_SIZE);
+                names[i] = string(buffer.getInt(property));
+                values[i] = string(buffer.getInt(property + 4));
+            }
+            return PropertyMap.of(Arrays.asList(names), Arrays.asList(values));
+        }
+
+        private List<ConstructorArgument> constructorArguments(int first, int count) {
+            List<ConstructorArgument> constructorArguments = new ArrayList<>(count);
+            for (int i = first; i < first + count; i++) {
+                int argument = (int) (propertiesStart + (long) i * PROPERTY_RECORD_SIZE);
+                String value = string(buffer.getInt(argument));
+                constructorArguments.add(value != null
+                        ? ConstructorArgument.value(value) : ConstructorArgument.ref(string(buffer.getInt(argument + 4))));
+            }
+            return constructorArguments;
+        }
+
+        private String string(int index) {
+            if (index == NO_STRING) {
+                return null;
+            }
+            if (index < 0 || index >= strings.length) {
+                throw new ParseContextException("Corrupt compiled bean definition file: string " + index + " is out of range");
+            }
+            String string = strings[index];
+            if (string == null) {
+                int start = buffer.getInt(offsetsStart + index * 4);
+                int end = buffer.getInt(offsetsStart + (index + 1) * 4);
+                if (start < 0 || end < start || end > stringDataLength) {
+                    throw new ParseContextException("Corrupt compiled bean definition file: string " + index + " is out of range");
+                }
+                byte[] bytes = new byte[end - start];
+                ByteBuffer data = buffer.duplicate();
+                data.position(stringDataStart + start);
+                data.get(bytes);
+                string = new String(bytes, StandardCharsets.UTF_8);
+                strings[index] = string;
+            }
+            return string;
+        }
+    }
+}
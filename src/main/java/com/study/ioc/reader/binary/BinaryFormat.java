@@ -0,0 +1,20 @@
+package com.study.ioc.reader.binary;
+
+// header | string offsets | bean records | property records | utf-8 string data
+final class BinaryFormat {
+    static final int MAGIC = 0x494F4342; // IOCB
+    static final short VERSION = 4;
+
+    static final int HEADER_SIZE = 24;
+    // id, class, scope, init method, destroy method, flags, first property, value count, ref count,
+    // constructor argument count, padding, pool size, pool max idle millis
+    static final int BEAN_RECORD_SIZE = 48;
+    // name, value for properties; value, ref for constructor arguments, which follow the ref properties
+    static final int PROPERTY_RECORD_SIZE = 8;
+
+    static final int FLAG_LAZY_INIT = 1;
+    static final int NO_STRING = -1;
+
+    private BinaryFormat() {
+    }
+}
@@ -0,0 +1,303 @@
+package com.study.ioc.reader.binary;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.resource.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// what a successful refresh found out about its context, stored next to a hash of everything it was derived from:
+// header | key | compiled bean definitions | creation levels | setter signatures
+public class StartupCache {
+    static final int CACHE_MAGIC = 0x494F4353; // IOCS
+    static final int KEY_SIZE = 32;
+    static final int CACHE_HEADER_SIZE = 8 + KEY_SIZE + 4;
+    private static final int NO_LEVELS = -1;
+
+    private final Path path;
+
+    public StartupCache(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // context files are hashed by content, class path entries by name, size and modification time only: one stat per
+    // entry, a directory is not walked. Adding or removing a class in a directory root changes its modification time,
+    // a class rewritten in place may not, which is safe as cached setters are checked against the loaded classes
+    public static byte[] getKey(String readerName, List<Resource> resources, String classPath) throws IOException {
+        MessageDigest digest = newDigest();
+        update(digest, readerName);
+        byte[] chunk = new byte[8192];
+        for (Resource resource : resources) {
+            update(digest, resource.getDescription());
+            try (InputStream inputStream = resource.getInputStream()) {
+                int read;
+                while ((read = inputStream.read(chunk)) != -1) {
+                    digest.update(chunk, 0, read);
+                }
+            }
+        }
+        for (String entry : classPath.split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            update(digest, entry);
+            Path entryPath = Paths.get(entry);
+            if (Files.exists(entryPath)) {
+                updateAttributes(digest, entryPath);
+            }
+        }
+        return digest.digest();
+    }
+
+    // null when there is no cache, it was written by another version or for other inputs
+    public Snapshot load(byte[] key) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < CACHE_HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != CACHE_MAGIC || buffer.getShort(4) != BinaryFormat.VERSION) {
+                return null;
+            }
+            byte[] storedKey = new byte[KEY_SIZE];
+            buffer.position(8);
+            buffer.get(storedKey);
+            if (!Arrays.equals(key, storedKey)) {
+                return null;
+            }
+            int definitionsLength = buffer.getInt();
+            ByteBuffer definitions = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            definitions.limit(definitionsLength);
+            Map<String, BeanDefinition> beanDefinitions = new BinaryBeanDefinitionReader(path).getBeanDefinitionMap(definitions);
+            buffer.position(buffer.position() + definitionsLength);
+
+            List<List<String>> levels = null;
+            int levelCount = buffer.getInt();
+            if (levelCount != NO_LEVELS) {
+                levels = new ArrayList<>(levelCount);
+                for (int i = 0; i < levelCount; i++) {
+                    levels.add(Collections.unmodifiableList(getStrings(buffer)));
+                }
+                levels = Collections.unmodifiableList(levels);
+            }
+            int setterCount = buffer.getInt();
+            List<SetterSignature> setters = new ArrayList<>(setterCount);
+            for (int i = 0; i < setterCount; i++) {
+                boolean ref = buffer.get() != 0;
+                setters.add(new SetterSignature(getString(buffer), ref, getString(buffer), getString(buffer), getString(buffer)));
+            }
+            return new Snapshot(beanDefinitions, levels, setters);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // a truncated or corrupt cache is rebuilt like a stale one
+            return null;
+        }
+    }
+
+    // written to a temporary file first, so a concurrently starting process never maps a half written cache
+    public void store(byte[] key, Snapshot snapshot) throws IOException {
+        ByteBuffer definitions = new BinaryBeanDefinitionCompiler().compile(snapshot.getBeanDefinitions());
+        List<byte[]> sections = new ArrayList<>();
+        int size = CACHE_HEADER_SIZE + definitions.remaining() + 8;
+        List<List<String>> levels = snapshot.getLevels();
+        if (levels != null) {
+            for (List<String> level : levels) {
+                size += 4;
+                for (String id : level) {
+                    size += addString(id, sections);
+                }
+            }
+        }
+        for (SetterSignature setter : snapshot.getSetters()) {
+            size += 1 + addString(setter.getBeanClass(), sections) + addString(setter.getProperty(), sections)
+                    + addString(setter.getDeclaringClass(), sections) + addString(setter.getParameterType(), sections);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(CACHE_MAGIC);
+        buffer.putShort(BinaryFormat.VERSION);
+        buffer.putShort((short) 0);
+        buffer.put(key);
+        buffer.putInt(definitions.remaining());
+        buffer.put(definitions);
+        int section = 0;
+        if (levels == null) {
+            buffer.putInt(NO_LEVELS);
+        } else {
+            buffer.putInt(levels.size());
+            for (List<String> level : levels) {
+                buffer.putInt(level.size());
+                for (int i = 0; i < level.size(); i++) {
+                    putString(sections.get(section++), buffer);
+                }
+            }
+        }
+        buffer.putInt(snapshot.getSetters().size());
+        for (SetterSignature setter : snapshot.getSetters()) {
+            buffer.put((byte) (setter.isRef() ? 1 : 0));
+            for (int i = 0; i < 4; i++) {
+                putString(sections.get(section++), buffer);
+            }
+        }
+        buffer.flip();
+
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        updateLong(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void updateAttributes(MessageDigest digest, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        updateLong(digest, attributes.size());
+        updateLong(digest, attributes.lastModifiedTime().toMillis());
+    }
+
+    private static void updateLong(MessageDigest digest, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            digest.update((byte) (value >>> shift));
+        }
+    }
+
+    private static int addString(String string, List<byte[]> sections) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        sections.add(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static void putString(byte[] bytes, ByteBuffer buffer) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(getString(buffer));
+        }
+        return strings;
+    }
+
+    public static class Snapshot {
+        private final Map<String, BeanDefinition> beanDefinitions;
+        private final List<List<String>> levels;
+        private final List<SetterSignature> setters;
+
+        // levels are null when the beans could not be ordered, e.g. because setter refs form a cycle
+        public Snapshot(Map<String, BeanDefinition> beanDefinitions, List<List<String>> levels, List<SetterSignature> setters) {
+            this.beanDefinitions = beanDefinitions;
+            this.levels = levels;
+            this.setters = setters;
+        }
+
+        public Map<String, BeanDefinition> getBeanDefinitions() {
+            return beanDefinitions;
+        }
+
+        public List<List<String>> getLevels() {
+            return levels;
+        }
+
+        public List<SetterSignature> getSetters() {
+            return setters;
+        }
+    }
+
+    // the setter a property of a bean class resolved to, types are binary names as taken by Class.forName
+    public static class SetterSignature {
+        private final String beanClass;
+        private final boolean ref;
+        private final String property;
+        private final String declaringClass;
+        private final String parameterType;
+
+        public SetterSignature(String beanClass, boolean ref, String property, String declaringClass, String parameterType) {
+            this.beanClass = beanClass;
+            this.ref = ref;
+            this.property = property;
+            this.declaringClass = declaringClass;
+            this.parameterType = parameterType;
+        }
+
+        public String getBeanClass() {
+            return beanClass;
+        }
+
+        public boolean isRef() {
+            return ref;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public String getDeclaringClass() {
+            return declaringClass;
+        }
+
+        public String getParameterType() {
+            return parameterType;
+        }
+    }
+}
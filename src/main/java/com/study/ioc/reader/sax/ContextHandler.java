@@ -1,30 +1,81 @@
 package com.study.ioc.reader.sax;
 
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PropertyMap;
+import com.study.ioc.entity.SymbolTable;
 import com.study.ioc.exception.ParseContextException;
 import org.xml.sax.Attributes;
 import org.xml.sax.helpers.DefaultHandler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ContextHandler extends DefaultHandler {
+    private static final Set<String> BUILT_IN_SCOPES = new HashSet<>(Arrays.asList(
+            BeanDefinition.SCOPE_SINGLETON, BeanDefinition.SCOPE_PROTOTYPE, BeanDefinition.SCOPE_THREAD));
+
+    private enum Element {
+        BEAN, CONSTRUCTOR_ARG, PROPERTY, OTHER
+    }
+
+    private final Set<String> scopes;
+    private final SymbolTable symbols;
+    // null collects the definitions into a map
+    private final Consumer<BeanDefinition> consumer;
+    // parsers hand out the same qName instances, so each distinct name is matched ignoring case only once
+    private final Map<String, Element> elements = new HashMap<>();
 
     private Map<String, BeanDefinition> beanDefinitions;
+    private Set<String> beanIds;
     private BeanDefinition beanDefinition;
-    private Map<String, String> valueDependencies;
-    private Map<String, String> refDependencies;
+    // reused for every bean, the definition gets compact copies
+    private final List<String> valueNames = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    private final List<String> refNames = new ArrayList<>();
+    private final List<String> refs = new ArrayList<>();
+    private List<ConstructorArgument> constructorArguments;
 
     private boolean bBean;
 
+    public ContextHandler() {
+        this(BUILT_IN_SCOPES);
+    }
+
+    // custom scopes have to be known to the reader, so that a typo is reported while parsing
+    public ContextHandler(Set<String> scopes) {
+        this(scopes, new SymbolTable(), null);
+    }
+
+    // hands every bean to the consumer as soon as its element is closed, nothing is collected;
+    // one symbol table can be shared by the handlers of several files
+    public ContextHandler(Set<String> scopes, SymbolTable symbols, Consumer<BeanDefinition> consumer) {
+        this.scopes = scopes;
+        this.symbols = symbols;
+        this.consumer = consumer;
+    }
+
     @Override
     public void startDocument() {
-        beanDefinitions = new HashMap<>();
+        if (consumer == null) {
+            beanDefinitions = new HashMap<>();
+        } else {
+            beanDefinitions = Collections.emptyMap();
+            beanIds = new HashSet<>();
+        }
     }
 
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes) {
-        if (qName.equalsIgnoreCase("bean")) {
+        Element element = getElement(qName);
+        if (element == Element.BEAN) {
             bBean = true;
             String id = attributes.getValue("id");
             if (id == null) {
@@ -34,10 +85,43 @@ public class ContextHandler extends DefaultHandler {
             if (clazzName == null) {
                 throw new ParseContextException("No specified class for bean");
             }
-            beanDefinition = new BeanDefinition(id, clazzName);
-            valueDependencies = new HashMap<>();
-            refDependencies = new HashMap<>();
-        } else if (qName.equalsIgnoreCase("property")) {
+            beanDefinition = new BeanDefinition(symbols.intern(id), symbols.intern(clazzName));
+            String scope = attributes.getValue("scope");
+            if (scope != null) {
+                if (!BUILT_IN_SCOPES.contains(scope) && !scopes.contains(scope)) {
+                    throw new ParseContextException("Unknown scope " + scope + " for bean " + id);
+                }
+                beanDefinition.setScope(symbols.intern(scope));
+            }
+            beanDefinition.setLazyInit(Boolean.parseBoolean(attributes.getValue("lazy-init")));
+            beanDefinition.setInitMethod(symbols.intern(attributes.getValue("init-method")));
+            beanDefinition.setDestroyMethod(symbols.intern(attributes.getValue("destroy-method")));
+            beanDefinition.setPoolSize((int) parseNumber(attributes.getValue("pool-size"), "pool-size", id));
+            beanDefinition.setPoolMaxIdleMillis(parseNumber(attributes.getValue("pool-max-idle-millis"), "pool-max-idle-millis", id));
+            if (beanDefinition.isPooled() && !beanDefinition.isPrototype()) {
+                throw new ParseContextException("Only prototype beans can be pooled, bean " + id + " is " + beanDefinition.getScope());
+            }
+            valueNames.clear();
+            values.clear();
+            refNames.clear();
+            refs.clear();
+            constructorArguments = Collections.emptyList();
+        } else if (element == Element.CONSTRUCTOR_ARG) {
+            if (!bBean) {
+                throw new ParseContextException("No specified bean for constructor-arg");
+            }
+            String argumentValue = attributes.getValue("value");
+            String argumentRef = attributes.getValue("ref");
+            if ((argumentValue == null) == (argumentRef == null)) {
+                throw new ParseContextException("Constructor-arg of bean " + beanDefinition.getId()
+                        + " must have either a value or a ref");
+            }
+            if (constructorArguments.isEmpty()) {
+                constructorArguments = new ArrayList<>();
+            }
+            constructorArguments.add(argumentValue != null
+                    ? ConstructorArgument.value(symbols.intern(argumentValue)) : ConstructorArgument.ref(symbols.intern(argumentRef)));
+        } else if (element == Element.PROPERTY) {
             if (!bBean) {
                 throw new ParseContextException("No specified bean for property");
             }
@@ -48,10 +132,12 @@ public class ContextHandler extends DefaultHandler {
             String propertyValue = attributes.getValue("value");
             String propertyRef = attributes.getValue("ref");
             if (propertyValue != null) {
-                valueDependencies.put(propertyName, propertyValue);
+                valueNames.add(propertyName);
+                values.add(propertyValue);
             }
             if (propertyRef != null) {
-                refDependencies.put(propertyName, propertyRef);
+                refNames.add(propertyName);
+                refs.add(propertyRef);
             }
         }
 
@@ -60,17 +146,61 @@ public class ContextHandler extends DefaultHandler {
     @Override
     public void endElement(String uri,
                            String localName, String qName) {
-        if (qName.equalsIgnoreCase("bean")) {
+        if (getElement(qName) == Element.BEAN) {
             bBean = false;
-            beanDefinition.setValueDependencies(valueDependencies);
-            beanDefinition.setRefDependencies(refDependencies);
-            beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            beanDefinition.setValueDependencies(PropertyMap.of(valueNames, values, symbols));
+            beanDefinition.setRefDependencies(PropertyMap.of(refNames, refs, symbols));
+            beanDefinition.setConstructorArguments(constructorArguments);
+            if (consumer == null) {
+                if (beanDefinitions.putIfAbsent(beanDefinition.getId(), beanDefinition) != null) {
+                    throw new ParseContextException("Duplicate bean id " + beanDefinition.getId());
+                }
+            } else {
+                if (!beanIds.add(beanDefinition.getId())) {
+                    throw new ParseContextException("Duplicate bean id " + beanDefinition.getId());
+                }
+                consumer.accept(beanDefinition);
+            }
+            beanDefinition = null;
         }
     }
 
+    private Element getElement(String qName) {
+        Element element = elements.get(qName);
+        if (element == null) {
+            if (qName.equalsIgnoreCase("bean")) {
+                element = Element.BEAN;
+            } else if (qName.equalsIgnoreCase("constructor-arg")) {
+                element = Element.CONSTRUCTOR_ARG;
+            } else if (qName.equalsIgnoreCase("property")) {
+                element = Element.PROPERTY;
+            } else {
+                element = Element.OTHER;
+            }
+            elements.put(qName, element);
+        }
+        return element;
+    }
+
+    // empty when the definitions are handed to a consumer
     public Map<String, BeanDefinition> getBeanDefinitions() {
         return beanDefinitions;
     }
 
+    private static long parseNumber(String value, String attribute, String id) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            long number = Long.parseLong(value);
+            if (number < 0 || ("pool-size".equals(attribute) && number > Integer.MAX_VALUE)) {
+                throw new ParseContextException("Invalid " + attribute + " " + value + " for bean " + id);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new ParseContextException("Invalid " + attribute + " " + value + " for bean " + id, e);
+        }
+    }
+
 
 }
@@ -1,49 +1,170 @@
 package com.study.ioc.reader.sax;
 
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.SymbolTable;
 import com.study.ioc.exception.ParseContextException;
 import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.resource.Resource;
+import com.study.ioc.resource.ResourceLoader;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class XmlBeanDefinitionReader implements BeanDefinitionReader {
+    // parsers are not thread safe, but can be reset and reused by the thread that owns them
+    private static final ThreadLocal<SAXParser> PARSERS = ThreadLocal.withInitial(() -> {
+        try {
+            return SAXParserFactory.newInstance().newSAXParser();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new ParseContextException("Can not create SAX parser", e);
+        }
+    });
+
     private String[] paths;
+    private List<Resource> resources;
+    private ResourceLoader resourceLoader = new ResourceLoader();
+    private final Set<String> scopes = new HashSet<>();
 
     public XmlBeanDefinitionReader(String... paths) {
         this.paths = paths;
     }
 
+    public XmlBeanDefinitionReader(List<Resource> resources) {
+        this.resources = resources;
+    }
+
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    // lets beans use a scope registered in the context settings
+    public void addScope(String scope) {
+        scopes.add(scope);
+    }
+
     @Override
     public Map<String, BeanDefinition> getBeanDefinition() {
+        List<Resource> resources = getResources();
+        // shared by the files of one read only, so strings of replaced definitions do not pile up over reloads
+        SymbolTable symbols = new SymbolTable();
+        if (resources.size() == 1) {
+            return getBeanDefinitionMap(resources.get(0), symbols);
+        }
+        List<CompletableFuture<Map<String, BeanDefinition>>> parsedFiles = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            parsedFiles.add(CompletableFuture.supplyAsync(() -> getBeanDefinitionMap(resource, symbols)));
+        }
+
         Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
-        for (String path : paths) {
-            ClassLoader classLoader = getClass().getClassLoader();
-            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(classLoader.getResource(path).getFile()))) {
-                beanDefinitionMap.putAll(getBeanDefinitionMap(inputStream));
-            } catch (IOException | ParserConfigurationException | SAXException e) {
-                throw new ParseContextException("Context parse failed for " + path);
+        Map<String, String> beanPaths = new HashMap<>();
+        for (int i = 0; i < resources.size(); i++) {
+            String description = resources.get(i).getDescription();
+            String duplicateId = null;
+            for (BeanDefinition beanDefinition : join(parsedFiles.get(i)).values()) {
+                String id = beanDefinition.getId();
+                if (beanPaths.putIfAbsent(id, description) != null) {
+                    duplicateId = duplicateId == null || id.compareTo(duplicateId) < 0 ? id : duplicateId;
+                }
+                beanDefinitionMap.putIfAbsent(id, beanDefinition);
+            }
+            if (duplicateId != null) {
+                throw new ParseContextException("Duplicate bean id " + duplicateId + " in " + description
+                        + ", already defined in " + beanPaths.get(duplicateId));
             }
         }
         return beanDefinitionMap;
     }
 
+    // files are parsed one after another on the calling thread, a bean reaches the consumer as soon as it is parsed
+    @Override
+    public void readBeanDefinitions(Consumer<BeanDefinition> consumer) {
+        SymbolTable symbols = new SymbolTable();
+        Map<String, String> beanPaths = new HashMap<>();
+        for (Resource resource : getResources()) {
+            String description = resource.getDescription();
+            ContextHandler handler = new ContextHandler(scopes, symbols, beanDefinition -> {
+                String definedIn = beanPaths.putIfAbsent(beanDefinition.getId(), description);
+                if (definedIn != null) {
+                    throw new ParseContextException("Duplicate bean id " + beanDefinition.getId() + " in " + description
+                            + ", already defined in " + definedIn);
+                }
+                consumer.accept(beanDefinition);
+            });
+            parse(resource, handler);
+        }
+    }
+
+    @Override
+    public List<Resource> getResources() {
+        if (resources != null) {
+            return resources;
+        }
+        List<Resource> resolvedResources = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            try {
+                resolvedResources.addAll(resourceLoader.getResources(path));
+            } catch (IOException e) {
+                throw new ParseContextException("Can not resolve context location " + path, e);
+            }
+        }
+        return resolvedResources;
+    }
 
-    Map<String, BeanDefinition> getBeanDefinitionMap(InputStream inputStream) throws ParserConfigurationException, SAXException, IOException {
-        SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
-        SAXParser saxParser = saxParserFactory.newSAXParser();
-        ContextHandler handler = new ContextHandler();
-        saxParser.parse(inputStream, handler);
+    private Map<String, BeanDefinition> getBeanDefinitionMap(Resource resource, SymbolTable symbols) {
+        ContextHandler handler = new ContextHandler(scopes, symbols, null);
+        parse(resource, handler);
         return handler.getBeanDefinitions();
     }
 
+    private void parse(Resource resource, ContextHandler handler) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            InputSource inputSource = new InputSource(inputStream);
+            inputSource.setSystemId(resource.getDescription());
+            parse(inputSource, handler);
+        } catch (IOException | SAXException e) {
+            throw new ParseContextException("Context parse failed for " + resource.getDescription(), e);
+        }
+    }
 
+    Map<String, BeanDefinition> getBeanDefinitionMap(InputStream inputStream) throws SAXException, IOException {
+        ContextHandler handler = new ContextHandler(scopes);
+        parse(new InputSource(inputStream), handler);
+        return handler.getBeanDefinitions();
+    }
+
+    // the parser buffers the stream itself, so resources are read without an extra copy
+    private void parse(InputSource inputSource, ContextHandler handler) throws SAXException, IOException {
+        SAXParser saxParser = PARSERS.get();
+        try {
+            saxParser.parse(inputSource, handler);
+        } finally {
+            saxParser.reset();
+        }
+    }
+
+    // files are merged in the order of resources, so the reported failure does not depend on scheduling
+    private Map<String, BeanDefinition> join(CompletableFuture<Map<String, BeanDefinition>> parsedFile) {
+        try {
+            return parsedFile.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.study.ioc.resource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+public class ClassPathResource implements Resource {
+    private final String path;
+    private final ClassLoader classLoader;
+
+    public ClassPathResource(String path) {
+        this(path, ClassPathResource.class.getClassLoader());
+    }
+
+    public ClassPathResource(String path, ClassLoader classLoader) {
+        this.path = path.startsWith("/") ? path.substring(1) : path;
+        this.classLoader = classLoader;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        URL url = classLoader.getResource(path);
+        if (url == null) {
+            throw new FileNotFoundException("Class path resource " + path + " does not exist");
+        }
+        return url.openStream();
+    }
+
+    @Override
+    public String getDescription() {
+        return path;
+    }
+}
@@ -0,0 +1,28 @@
+package com.study.ioc.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileSystemResource implements Resource {
+    private final Path path;
+
+    public FileSystemResource(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public String getDescription() {
+        return path.toString();
+    }
+}
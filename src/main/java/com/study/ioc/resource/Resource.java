@@ -0,0 +1,10 @@
+package com.study.ioc.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface Resource {
+    InputStream getInputStream() throws IOException;
+
+    String getDescription();
+}
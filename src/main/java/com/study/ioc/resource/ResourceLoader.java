@@ -0,0 +1,221 @@
+package com.study.ioc.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// resolves classpath:, classpath*:, file: and plain (class path) locations, the last path segments may contain * ** ?
+public class ResourceLoader {
+    public static final String CLASSPATH_PREFIX = "classpath:";
+    public static final String CLASSPATH_ALL_PREFIX = "classpath*:";
+    public static final String FILE_PREFIX = "file:";
+
+    private final ClassLoader classLoader;
+
+    public ResourceLoader() {
+        this(ResourceLoader.class.getClassLoader());
+    }
+
+    public ResourceLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public List<Resource> getResources(String location) throws IOException {
+        if (location.startsWith(CLASSPATH_ALL_PREFIX)) {
+            String path = stripLeadingSlash(location.substring(CLASSPATH_ALL_PREFIX.length()));
+            if (hasWildcard(path)) {
+                return findClassPathResources(path);
+            }
+            List<Resource> resources = new ArrayList<>();
+            for (URL url : Collections.list(classLoader.getResources(path))) {
+                resources.add(new UrlResource(url));
+            }
+            return resources;
+        }
+        if (location.startsWith(FILE_PREFIX)) {
+            String path = location.substring(FILE_PREFIX.length());
+            if (hasWildcard(path)) {
+                return findFileResources(path);
+            }
+            return Collections.singletonList(new FileSystemResource(Paths.get(path)));
+        }
+        String path = location.startsWith(CLASSPATH_PREFIX) ? location.substring(CLASSPATH_PREFIX.length()) : location;
+        if (hasWildcard(path)) {
+            return findClassPathResources(stripLeadingSlash(path));
+        }
+        return Collections.singletonList(new ClassPathResource(path, classLoader));
+    }
+
+    private List<Resource> findClassPathResources(String pattern) throws IOException {
+        String rootDirectory = getRootDirectory(pattern);
+        Pattern matcher = toRegex(pattern.substring(rootDirectory.length()));
+        List<Resource> resources = new ArrayList<>();
+        Set<String> scannedJars = new HashSet<>();
+        for (URL root : Collections.list(classLoader.getResources(rootDirectory))) {
+            if ("file".equals(root.getProtocol())) {
+                for (Path path : findFiles(toPath(root), matcher)) {
+                    resources.add(new UrlResource(path.toUri().toURL()));
+                }
+            } else if ("jar".equals(root.getProtocol())) {
+                String jarRoot = root.toString().substring(0, root.toString().indexOf("!/") + 2);
+                scannedJars.add(jarRoot);
+                resources.addAll(findJarEntries(new URL(jarRoot), rootDirectory, matcher));
+            }
+        }
+        // jars built without directory entries are not reported by getResources, so they are scanned directly
+        for (String jarRoot : getClassPathJars()) {
+            if (scannedJars.add(jarRoot)) {
+                resources.addAll(findJarEntries(new URL(jarRoot), rootDirectory, matcher));
+            }
+        }
+        return resources;
+    }
+
+    private List<Resource> findFileResources(String pattern) throws IOException {
+        String rootDirectory = getRootDirectory(pattern.replace('\\', '/'));
+        Pattern matcher = toRegex(pattern.replace('\\', '/').substring(rootDirectory.length()));
+        Path root = Paths.get(rootDirectory.isEmpty() ? "." : rootDirectory);
+        List<Resource> resources = new ArrayList<>();
+        for (Path path : findFiles(root, matcher)) {
+            resources.add(new FileSystemResource(path));
+        }
+        return resources;
+    }
+
+    private List<Path> findFiles(Path root, Pattern matcher) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matcher(root.relativize(path).toString().replace('\\', '/')).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<Resource> findJarEntries(URL jarRoot, String rootDirectory, Pattern matcher) throws IOException {
+        URLConnection connection = jarRoot.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return Collections.emptyList();
+        }
+        JarURLConnection jarConnection = (JarURLConnection) connection;
+        List<String> entryNames = new ArrayList<>();
+        JarFile jarFile = jarConnection.getJarFile();
+        try {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                String name = entry.getName();
+                if (!entry.isDirectory() && name.startsWith(rootDirectory)
+                        && matcher.matcher(name.substring(rootDirectory.length())).matches()) {
+                    entryNames.add(name);
+                }
+            }
+        } finally {
+            if (!jarConnection.getUseCaches()) {
+                jarFile.close();
+            }
+        }
+        Collections.sort(entryNames);
+        List<Resource> resources = new ArrayList<>(entryNames.size());
+        for (String entryName : entryNames) {
+            resources.add(new UrlResource(new URL(jarRoot + entryName)));
+        }
+        return resources;
+    }
+
+    private Set<String> getClassPathJars() throws IOException {
+        Set<String> jarRoots = new LinkedHashSet<>();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    if ("file".equals(url.getProtocol()) && url.getPath().endsWith(".jar")) {
+                        jarRoots.add("jar:" + url + "!/");
+                    }
+                }
+            }
+        }
+        // since java 9 the application class loader is no URLClassLoader
+        if (isSystemLoaderChain(classLoader)) {
+            for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                if (entry.endsWith(".jar")) {
+                    jarRoots.add("jar:" + Paths.get(entry).toUri().toURL() + "!/");
+                }
+            }
+        }
+        return jarRoots;
+    }
+
+    private boolean isSystemLoaderChain(ClassLoader loader) {
+        for (ClassLoader current = ClassLoader.getSystemClassLoader(); current != null; current = current.getParent()) {
+            if (current == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean hasWildcard(String path) {
+        return path.indexOf('*') >= 0 || path.indexOf('?') >= 0;
+    }
+
+    // the part of the pattern up to the last '/' before the first wildcard
+    static String getRootDirectory(String pattern) {
+        int firstWildcard = pattern.length();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                firstWildcard = i;
+                break;
+            }
+        }
+        return pattern.substring(0, pattern.lastIndexOf('/', firstWildcard) + 1);
+    }
+
+    static Pattern toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                if (i + 2 < pattern.length() && pattern.charAt(i + 2) == '/') {
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i++;
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String stripLeadingSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Can not resolve " + url, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.study.ioc.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+public class UrlResource implements Resource {
+    private final URL url;
+    private final String description;
+
+    public UrlResource(URL url) {
+        this(url, url.toString());
+    }
+
+    UrlResource(URL url, String description) {
+        this.url = url;
+        this.description = description;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return url.openStream();
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,34 @@
+package com.study.entity;
+
+public class ConstructorUserService implements UserService {
+
+    private final String name;
+    private final int maxUsers;
+    private final IMailService mailService;
+
+    public ConstructorUserService(String name, int maxUsers, IMailService mailService) {
+        this.name = name;
+        this.maxUsers = maxUsers;
+        this.mailService = mailService;
+    }
+
+    public ConstructorUserService(IMailService mailService) {
+        this("default", 10, mailService);
+    }
+
+    public void activateUsers() {
+        mailService.sendEmail(new User(), "You are active now in " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxUsers() {
+        return maxUsers;
+    }
+
+    public IMailService getMailService() {
+        return mailService;
+    }
+}
@@ -0,0 +1,159 @@
+package com.study.ioc.aot;
+
+import com.study.entity.ConstructorUserService;
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.ioc.annotation.GenerateContext;
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.context.impl.GenericApplicationContextTest.DestroyRecorder;
+import com.study.ioc.exception.NoSuchBeanDefinitionException;
+import com.study.ioc.exception.NoUniqueBeanOfTypeException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+@GenerateContext(value = "aot-context.xml", className = "GeneratedAotContext")
+public class GeneratedContextTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGeneratedContextMatchesXmlContext() {
+        ApplicationContext generated = new GeneratedUserContext();
+        ApplicationContext context = new GenericApplicationContext("mail-context.xml", "user-context.xml");
+
+        assertEquals(Arrays.asList("mailServiceIMAP", "mailServicePOP", "userService", "userServiceImap"), generated.getBeanNames());
+        for (String id : context.getBeanNames()) {
+            assertSame(context.getBean(id).getClass(), generated.getBean(id).getClass());
+        }
+        MailService mailService = generated.getBean("mailServicePOP", MailService.class);
+        assertEquals(995, mailService.getPort());
+        assertEquals("POP3", mailService.getProtocol());
+        assertSame(mailService, generated.getBean("userService", DefaultUserService.class).getMailService());
+        assertSame(generated.getBean("mailServiceIMAP"), generated.getBean("userServiceImap", DefaultUserService.class).getMailService());
+        assertEquals(context.getBeansOfType(MailService.class).keySet(), generated.getBeansOfType(MailService.class).keySet());
+        assertSame(generated.getBeansOfType(MailService.class), generated.getBeansOfType(MailService.class));
+        assertSame(mailService, generated.getBeanHandle("mailServicePOP", MailService.class).get());
+        try {
+            generated.getBean(MailService.class);
+            fail();
+        } catch (NoUniqueBeanOfTypeException e) {
+            assertEquals("More than one Bean of class com.study.entity.MailService", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testConstructorsPrototypesAndLifecycle() {
+        DestroyRecorder.DESTROYED.clear();
+        ApplicationContext context = new GeneratedAotContext();
+
+        MailService mailService = context.getBean(MailService.class);
+        assertEquals(50, mailService.getPort());
+        ConstructorUserService userService = context.getBean("userService", ConstructorUserService.class);
+        assertEquals("admins", userService.getName());
+        assertEquals(42, userService.getMaxUsers());
+        assertSame(mailService, userService.getMailService());
+        DefaultUserService prototype = context.getBean(DefaultUserService.class);
+        assertNotSame(prototype, context.getBean("prototypeUserService"));
+        assertSame(mailService, prototype.getMailService());
+        assertFalse(context.getBeansOfType(DefaultUserService.class).containsKey("prototypeUserService"));
+        try {
+            context.getBean("mailService", DefaultUserService.class);
+            fail();
+        } catch (NoSuchBeanDefinitionException e) {
+            assertTrue(e.getMessage().contains("Bean is of type com.study.entity.MailService"));
+        }
+
+        context.close();
+        assertEquals(Arrays.asList("userDao", "dataSource"), DestroyRecorder.DESTROYED);
+        context.close();
+        assertEquals(2, DestroyRecorder.DESTROYED.size());
+        try {
+            context.getBean("mailService");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Context is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLazySingletonFailsGeneration() throws Exception {
+        Path sources = temporaryFolder.newFolder("sources").toPath();
+        Files.write(sources.resolve("lazy-context.xml"), ("<beans>\n"
+                + "    <bean id=\"mailService\" class=\"com.study.entity.MailService\" lazy-init=\"true\"/>\n"
+                + "</beans>\n").getBytes(StandardCharsets.UTF_8));
+        Path source = sources.resolve("LazyContext.java");
+        Files.write(source, ("@com.study.ioc.annotation.GenerateContext(value = \"lazy-context.xml\", className = \"GeneratedLazyContext\")\n"
+                + "class LazyContext {\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Collections.singletonList("Can not generate context GeneratedLazyContext: Bean mailService is lazy-init,"
+                + " generated contexts create every singleton when they are constructed"), compile(source, "-proc:only"));
+    }
+
+    @Test
+    public void testControlCharactersInValues() throws Exception {
+        Path sources = temporaryFolder.newFolder("sources").toPath();
+        Files.write(sources.resolve("escape-context.xml"), ("<beans>\n"
+                + "    <bean id=\"mailService\" class=\"com.study.entity.MailService\">\n"
+                + "        <property name=\"protocol\" value=\"a&#10;b&#13;c&#9;d\\&quot;&#233;\"/>\n"
+                + "    </bean>\n"
+                + "</beans>\n").getBytes(StandardCharsets.UTF_8));
+        Path source = sources.resolve("EscapeContext.java");
+        Files.write(source, ("@com.study.ioc.annotation.GenerateContext(value = \"escape-context.xml\", className = \"GeneratedEscapeContext\")\n"
+                + "class EscapeContext {\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Collections.emptyList(), compile(source));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toPath().resolve("classes").toUri().toURL()},
+                getClass().getClassLoader())) {
+            ApplicationContext context = (ApplicationContext) classLoader.loadClass("GeneratedEscapeContext").newInstance();
+            assertEquals("a\nb\rc\td\\\"\u00e9", context.getBean("mailService", MailService.class).getProtocol());
+        }
+    }
+
+    // runs the processor over a source file of a temporary folder, returns the compilation errors
+    private List<String> compile(Path source, String... extraOptions) throws Exception {
+        Path classes = temporaryFolder.newFolder("classes").toPath();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<String> options = new ArrayList<>(Arrays.asList(extraOptions));
+            options.addAll(Arrays.asList("-processor", GenerateContextProcessor.class.getName(), "-classpath", System.getProperty("java.class.path"),
+                    "-sourcepath", source.getParent().toString(), "-d", classes.toString()));
+            compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjects(source.toFile())).call();
+        }
+        List<String> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+        return errors;
+    }
+
+    @GenerateContext(value = {"mail-context.xml", "user-context.xml"}, className = "GeneratedUserContext")
+    static class UserContext {
+    }
+}
@@ -0,0 +1,80 @@
+package com.study.ioc.context.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BeanPoolTest {
+
+    @Test
+    public void testBorrowAndRelease() {
+        AtomicInteger created = new AtomicInteger();
+        List<Object> destroyed = Collections.synchronizedList(new ArrayList<>());
+        BeanPool pool = new BeanPool("buffer", 2, 0, () -> "buffer" + created.incrementAndGet(), destroyed::add);
+
+        Object first = pool.borrow();
+        Object second = pool.borrow();
+        Object third = pool.borrow();
+        assertEquals(3, created.get());
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(Collections.singletonList("buffer3"), destroyed);
+
+        Object reused = pool.borrow();
+        assertTrue(reused == first || reused == second);
+        assertEquals(3, created.get());
+        pool.clear();
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(2, destroyed.size());
+        assertFalse(destroyed.contains(reused));
+    }
+
+    @Test
+    public void testEviction() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        List<Object> destroyed = Collections.synchronizedList(new ArrayList<>());
+        BeanPool pool = new BeanPool("buffer", 4, 1, () -> "buffer" + created.incrementAndGet(), destroyed::add);
+
+        pool.release(pool.borrow());
+        Thread.sleep(5);
+        assertEquals("buffer2", pool.borrow());
+        assertEquals(Collections.singletonList("buffer1"), destroyed);
+
+        pool.release("buffer2");
+        Thread.sleep(5);
+        pool.evict();
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(2, destroyed.size());
+    }
+
+    @Test
+    public void testConcurrentBorrow() {
+        AtomicInteger created = new AtomicInteger();
+        BeanPool pool = new BeanPool("buffer", 4, 0, () -> new int[]{created.incrementAndGet()}, object -> {
+        });
+        Set<Object> borrowed = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    Object object = pool.borrow();
+                    assertTrue(borrowed.add(object));
+                    assertTrue(borrowed.remove(object));
+                    pool.release(object);
+                }
+            }));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+        assertTrue(pool.getIdleCount() <= 4);
+    }
+}
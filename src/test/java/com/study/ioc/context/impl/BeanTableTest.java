@@ -0,0 +1,54 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.ioc.entity.Bean;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BeanTableTest {
+
+    @Test
+    public void testGet() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        Map<String, Object> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            MailService mailService = new MailService();
+            beanMap.put("mailService" + i, new Bean("mailService" + i, mailService));
+            expected.put("mailService" + i, mailService);
+        }
+        BeanTable beanTable = new BeanTable(beanMap);
+
+        assertEquals(1000, beanTable.size());
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), beanTable.get(new String(entry.getKey())));
+        }
+        assertNull(beanTable.get("mailService1000"));
+        assertNull(beanTable.get(""));
+    }
+
+    @Test
+    public void testGetByType() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        MailService mailService = new MailService();
+        beanMap.put("bean1", new Bean("bean1", new DefaultUserService()));
+        beanMap.put("bean2", new Bean("bean2", new DefaultUserService()));
+        beanMap.put("bean3", new Bean("bean3", mailService));
+        BeanTable beanTable = new BeanTable(beanMap);
+
+        assertSame(BeanTable.NOT_UNIQUE, beanTable.getByType(DefaultUserService.class));
+        assertSame(mailService, beanTable.getByType(MailService.class));
+        assertNull(beanTable.getByType(Object.class));
+        assertEquals(new HashSet<>(Arrays.asList("bean1", "bean2", "bean3")), new HashSet<>(beanTable.getBeanNames()));
+    }
+
+    @Test
+    public void testEmpty() {
+        BeanTable beanTable = new BeanTable(Collections.<String, Bean>emptyMap());
+        assertEquals(0, beanTable.size());
+        assertNull(beanTable.get("bean"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.MailService;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ContextWatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        Path contextFile = temporaryFolder.newFile("context.xml").toPath();
+        writeContext(contextFile, 25);
+        GenericApplicationContext context = new GenericApplicationContext(
+                new XmlBeanDefinitionReader("file:" + contextFile.toAbsolutePath().toString().replace(File.separatorChar, '/')));
+        assertEquals(25, context.getBean("mailService", MailService.class).getPort());
+
+        try (ContextWatcher watcher = new ContextWatcher(context, contextFile)) {
+            watcher.start();
+            writeContext(contextFile, 465);
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (context.getBean("mailService", MailService.class).getPort() != 465 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+        assertEquals(465, context.getBean("mailService", MailService.class).getPort());
+    }
+
+    @Test
+    public void testFailedReloadIsPassedToErrorHandler() throws Exception {
+        Path contextFile = temporaryFolder.newFile("context.xml").toPath();
+        writeContext(contextFile, 25);
+        GenericApplicationContext context = new GenericApplicationContext(
+                new XmlBeanDefinitionReader("file:" + contextFile.toAbsolutePath().toString().replace(File.separatorChar, '/')));
+        CompletableFuture<RuntimeException> error = new CompletableFuture<>();
+
+        try (ContextWatcher watcher = new ContextWatcher(context, error::complete, contextFile)) {
+            watcher.start();
+            Files.write(contextFile, "<beans>".getBytes(StandardCharsets.UTF_8));
+            assertNotNull(error.get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(25, context.getBean("mailService", MailService.class).getPort());
+    }
+
+    private static void writeContext(Path contextFile, int port) throws Exception {
+        String xml = "<beans>\n"
+                + "    <bean id=\"mailService\" class=\"com.study.entity.MailService\">\n"
+                + "        <property name=\"port\" value=\"" + port + "\"/>\n"
+                + "    </bean>\n"
+                + "</beans>\n";
+        Files.write(contextFile, xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
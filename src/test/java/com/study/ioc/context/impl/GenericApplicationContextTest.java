@@ -1,25 +1,56 @@
 package com.study.ioc.context.impl;
 
+import com.study.entity.ConstructorUserService;
 import com.study.entity.DefaultUserService;
+import com.study.entity.IMailService;
 import com.study.entity.MailService;
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.BeanHandle;
+import com.study.ioc.context.ContextExecutors;
+import com.study.ioc.context.ContextSettings;
+import com.study.ioc.context.Scope;
 import com.study.ioc.entity.Bean;
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.BeanDestructionException;
 import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.CircularReferenceException;
 import com.study.ioc.exception.NoSuchBeanDefinitionException;
 import com.study.ioc.exception.NoUniqueBeanOfTypeException;
+import com.study.ioc.exception.ProcessPostConstructException;
+import com.study.ioc.processor.BeanPostProcessor;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.*;
 
 public class GenericApplicationContextTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private GenericApplicationContext genericApplicationContext;
 
     @Before
@@ -98,6 +129,14 @@ public class GenericApplicationContextTest {
         genericApplicationContext.getBean(DefaultUserService.class);
     }
 
+    @Test(expected = NoSuchBeanDefinitionException.class)
+    public void testGetBeanByClazzNoSuchBean() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        beanMap.put("bean1", new Bean("bean1", new DefaultUserService()));
+        genericApplicationContext.setBeans(beanMap);
+        genericApplicationContext.getBean(MailService.class);
+    }
+
     @Test
     public void testGetBeanByIdAndClazz() {
         Map<String, Bean> beanMap = new HashMap<>();
@@ -205,4 +244,769 @@ public class GenericApplicationContextTest {
         int actualPort = mailService.getPort();
         assertEquals(465, actualPort);
     }
+
+    @Test
+    public void testParallelRefresh() {
+        ContextSettings settings = new ContextSettings();
+        settings.setParallelRefresh(true);
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), settings);
+
+        assertEquals(4, context.getBeanNames().size());
+        DefaultUserService userService = context.getBean("userService", DefaultUserService.class);
+        DefaultUserService userServiceImap = context.getBean("userServiceImap", DefaultUserService.class);
+        assertSame(context.getBean("mailServicePOP"), userService.getMailService());
+        assertSame(context.getBean("mailServiceIMAP"), userServiceImap.getMailService());
+        assertEquals(143, ((MailService) userServiceImap.getMailService()).getPort());
+    }
+
+    @Test
+    public void testLazyAndPrototypeBeans() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailService", "com.study.entity.MailService");
+        mailServiceDefinition.setLazyInit(true);
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "25"));
+        mailServiceDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinitionMap.put("mailService", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        userServiceDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailService"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+
+        Map<String, Bean> beanMap = genericApplicationContext.createBeans(beanDefinitionMap);
+        genericApplicationContext.injectValueDependencies(beanDefinitionMap, beanMap);
+        genericApplicationContext.injectRefDependencies(beanDefinitionMap, beanMap);
+        genericApplicationContext.setBeans(beanMap);
+        assertFalse(((DeferredBean) beanMap.get("mailService")).isInitialized());
+        assertFalse(((DeferredBean) beanMap.get("userService")).isInitialized());
+
+        DefaultUserService userService1 = genericApplicationContext.getBean(DefaultUserService.class);
+        DefaultUserService userService2 = genericApplicationContext.getBean("userService", DefaultUserService.class);
+        assertNotSame(userService1, userService2);
+        assertTrue(((DeferredBean) beanMap.get("mailService")).isInitialized());
+        MailService mailService = genericApplicationContext.getBean("mailService", MailService.class);
+        assertSame(mailService, userService1.getMailService());
+        assertSame(mailService, userService2.getMailService());
+        assertEquals(25, mailService.getPort());
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentLazyBeansReferringToEachOther() throws Exception {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        for (String[] ids : new String[][]{{"left", "right"}, {"right", "left"}}) {
+            BeanDefinition beanDefinition = getRecorderDefinition(ids[0], ids[1], null, "0");
+            Map<String, String> valueDependencies = new HashMap<>(beanDefinition.getValueDependencies());
+            valueDependencies.put("wireMillis", "200");
+            beanDefinition.setValueDependencies(valueDependencies);
+            beanDefinition.setLazyInit(true);
+            beanDefinitionMap.put(ids[0], beanDefinition);
+        }
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        CompletableFuture<DestroyRecorder> left = CompletableFuture.supplyAsync(() -> context.getBean("left", DestroyRecorder.class));
+        CompletableFuture<DestroyRecorder> right = CompletableFuture.supplyAsync(() -> context.getBean("right", DestroyRecorder.class));
+        assertSame(right.get(), left.get().getDependency());
+        assertSame(left.get(), right.get().getDependency());
+    }
+
+    @Test
+    public void testSerialAndParallelRefreshInjectPostProcessedBeans() {
+        for (boolean parallelRefresh : new boolean[]{false, true}) {
+            ContextSettings settings = new ContextSettings();
+            settings.setParallelRefresh(parallelRefresh);
+            settings.addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanId) {
+                    if (!(bean instanceof MailService)) {
+                        return bean;
+                    }
+                    MailService replacement = new MailService();
+                    replacement.setPort(((MailService) bean).getPort() + 1);
+                    return replacement;
+                }
+            });
+            GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), settings);
+
+            MailService mailService = context.getBean("mailServicePOP", MailService.class);
+            assertEquals(996, mailService.getPort());
+            assertSame(mailService, context.getBean("userService", DefaultUserService.class).getMailService());
+            assertSame(context.getBean("mailServiceIMAP"), context.getBean("userServiceImap", DefaultUserService.class).getMailService());
+        }
+    }
+
+    @Test
+    public void testDestroyMethodOfWrappedBean() {
+        DestroyRecorder.DESTROYED.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("dataSource", getRecorderDefinition("dataSource", null, "stop", "0"));
+        BeanDefinition lazyDefinition = getRecorderDefinition("lazyDataSource", null, "stop", "0");
+        lazyDefinition.setLazyInit(true);
+        beanDefinitionMap.put("lazyDataSource", lazyDefinition);
+        beanDefinitionMap.put("cache", getRecorderDefinition("cache", null, null, "0"));
+        ContextSettings settings = new ContextSettings();
+        settings.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanId) {
+                return (Supplier<Object>) () -> bean;
+            }
+        });
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, settings);
+        assertTrue(context.getBean("dataSource") instanceof Supplier);
+        assertTrue(context.getBean("lazyDataSource") instanceof Supplier);
+
+        context.close();
+        assertEquals(new HashSet<>(Arrays.asList("dataSource", "lazyDataSource", "cache closed")), new HashSet<>(DestroyRecorder.DESTROYED));
+    }
+
+    @Test
+    public void testPostProcessorsAndInitMethod() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailService", "com.study.entity.MailService");
+        mailServiceDefinition.setInitMethod("init");
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "25"));
+        mailServiceDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinitionMap.put("mailService", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailService"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        BeanDefinition processorDefinition = new BeanDefinition("counter", CountingPostProcessor.class.getName());
+        processorDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        processorDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinitionMap.put("counter", processorDefinition);
+
+        ContextSettings settings = new ContextSettings();
+        settings.addBeanFactoryPostProcessor(definitions ->
+                definitions.get("mailService").setValueDependencies(Collections.singletonMap("port", "110")));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, settings);
+
+        MailService mailService = context.getBean("mailService", MailService.class);
+        assertEquals(220, mailService.getPort());
+        CountingPostProcessor counter = context.getBean(CountingPostProcessor.class);
+        assertEquals(Collections.singletonList("mailService"), counter.getProcessedBeans());
+        assertEquals(3, context.getBeanNames().size());
+    }
+
+    @Test
+    public void testBeanFactoryPostProcessorChangesPropertyValue() {
+        ContextSettings settings = new ContextSettings();
+        settings.addBeanFactoryPostProcessor(definitions -> {
+            definitions.get("mailServicePOP").getValueDependencies().put("port", "110");
+            definitions.get("userServiceImap").getRefDependencies().put("mailService", "mailServicePOP");
+        });
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), settings);
+
+        MailService mailService = context.getBean("mailServicePOP", MailService.class);
+        assertEquals(110, mailService.getPort());
+        assertSame(mailService, context.getBean("userServiceImap", DefaultUserService.class).getMailService());
+    }
+
+    @Test(expected = ProcessPostConstructException.class)
+    public void testMissingInitMethod() {
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailService", "com.study.entity.MailService");
+        mailServiceDefinition.setInitMethod("start");
+        mailServiceDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        mailServiceDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        new GenericApplicationContext(() -> Collections.singletonMap("mailService", mailServiceDefinition));
+    }
+
+    @Test
+    public void testRefreshAsync() {
+        ContextSettings settings = new ContextSettings();
+        settings.setExecutor(ContextExecutors.virtualThreadPerTask());
+        GenericApplicationContext context = new GenericApplicationContext(settings);
+        CompletableFuture<Object> userServiceFuture = context.getBeanAsync("userServiceImap");
+
+        CompletableFuture<ApplicationContext> refresh = context.refreshAsync(new XmlBeanDefinitionReader("context.xml"));
+        DefaultUserService userService = (DefaultUserService) userServiceFuture.join();
+        assertEquals(143, ((MailService) userService.getMailService()).getPort());
+        assertSame(context, refresh.join());
+        assertSame(userService, context.getBean("userServiceImap"));
+        assertSame(userService.getMailService(), context.getBeanAsync("mailServiceIMAP").join());
+    }
+
+    @Test
+    public void testRefreshAsyncFailure() {
+        BeanDefinition brokenDefinition = new BeanDefinition("broken", "com.study.entity.TestClass");
+        brokenDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        brokenDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        GenericApplicationContext context = new GenericApplicationContext(new ContextSettings());
+        CompletableFuture<ApplicationContext> refresh = context.refreshAsync(() -> Collections.singletonMap("broken", brokenDefinition));
+        try {
+            refresh.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof BeanInstantiationException);
+        }
+        assertTrue(context.getBeanAsync("broken").isCompletedExceptionally());
+        try {
+            context.getBean("broken");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Context is not refreshed yet", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReload() {
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader("context.xml").getBeanDefinition();
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+        Object mailServicePop = context.getBean("mailServicePOP");
+        Object userServicePop = context.getBean("userService");
+        Object mailServiceImap = context.getBean("mailServiceIMAP");
+        Object userServiceImap = context.getBean("userServiceImap");
+
+        BeanDefinition changedDefinition = new BeanDefinition("mailServiceIMAP", "com.study.entity.MailService");
+        changedDefinition.setValueDependencies(Collections.singletonMap("port", "993"));
+        changedDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinitionMap.put("mailServiceIMAP", changedDefinition);
+
+        assertEquals(new HashSet<>(Arrays.asList("mailServiceIMAP", "userServiceImap")), context.reload());
+        assertSame(mailServicePop, context.getBean("mailServicePOP"));
+        assertSame(userServicePop, context.getBean("userService"));
+        assertNotSame(mailServiceImap, context.getBean("mailServiceIMAP"));
+        DefaultUserService reloadedUserService = context.getBean("userServiceImap", DefaultUserService.class);
+        assertNotSame(userServiceImap, reloadedUserService);
+        assertEquals(993, ((MailService) reloadedUserService.getMailService()).getPort());
+        assertSame(context.getBean("mailServiceIMAP"), reloadedUserService.getMailService());
+
+        beanDefinitionMap.remove("userService");
+        assertEquals(Collections.emptySet(), context.reload());
+        assertEquals(3, context.getBeanNames().size());
+    }
+
+    @Test
+    public void testParentContext() {
+        GenericApplicationContext parent = new GenericApplicationContext("mail-context.xml");
+        ContextSettings settings = new ContextSettings();
+        settings.setParent(parent);
+        GenericApplicationContext child = new GenericApplicationContext(new XmlBeanDefinitionReader("user-context.xml"), settings);
+
+        assertSame(parent, child.getParent());
+        assertNull(parent.getParent());
+        assertEquals(2, child.getBeanNames().size());
+        assertSame(parent.getBean("mailServicePOP"), child.getBean("mailServicePOP"));
+        assertSame(parent.getBean("mailServiceIMAP"), child.getBean("mailServiceIMAP", MailService.class));
+        assertSame(parent.getBean("mailServicePOP"), child.getBean("userService", DefaultUserService.class).getMailService());
+        assertSame(parent.getBean("mailServiceIMAP"), child.getBeanAsync("userServiceImap")
+                .thenApply(userService -> ((DefaultUserService) userService).getMailService()).join());
+        try {
+            child.getBean(MailService.class);
+            fail();
+        } catch (NoUniqueBeanOfTypeException e) {
+            assertEquals("More than one Bean of class com.study.entity.MailService", e.getMessage());
+        }
+        try {
+            parent.getBean("userService");
+            fail();
+        } catch (NoSuchBeanDefinitionException e) {
+            assertTrue(e.getMessage().contains("with id userService"));
+        }
+    }
+
+    @Test
+    public void testConstructorInjection() {
+        for (boolean parallelRefresh : new boolean[]{false, true}) {
+            ContextSettings settings = new ContextSettings();
+            settings.setParallelRefresh(parallelRefresh);
+            GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("constructor-context.xml"), settings);
+
+            MailService mailService = context.getBean("mailService", MailService.class);
+            ConstructorUserService userService = context.getBean("userService", ConstructorUserService.class);
+            assertEquals("admins", userService.getName());
+            assertEquals(42, userService.getMaxUsers());
+            assertSame(mailService, userService.getMailService());
+            ConstructorUserService defaultUserService = context.getBean("defaultUserService", ConstructorUserService.class);
+            assertEquals("default", defaultUserService.getName());
+            assertSame(mailService, defaultUserService.getMailService());
+        }
+    }
+
+    @Test
+    public void testConstructorOverloadedByRefType() {
+        for (boolean parallelRefresh : new boolean[]{false, true}) {
+            Map<String, BeanDefinition> beanDefinitionMap = getScopedDefinitions(BeanDefinition.SCOPE_SINGLETON);
+            beanDefinitionMap.put("name", getOverloadedDefinition("name", "java.lang.String", null));
+            beanDefinitionMap.put("byMailService", getOverloadedDefinition("byMailService", OverloadedService.class.getName(), "mailService"));
+            beanDefinitionMap.put("byName", getOverloadedDefinition("byName", OverloadedService.class.getName(), "name"));
+            ContextSettings settings = new ContextSettings();
+            settings.setParallelRefresh(parallelRefresh);
+            GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, settings);
+
+            assertSame(context.getBean("mailService"), context.getBean("byMailService", OverloadedService.class).getMailService());
+            assertNull(context.getBean("byName", OverloadedService.class).getMailService());
+            assertSame(context.getBean("name"), context.getBean("byName", OverloadedService.class).getName());
+        }
+    }
+
+    @Test
+    public void testCircularConstructorReference() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        for (String[] ids : new String[][]{{"first", "second"}, {"second", "first"}}) {
+            BeanDefinition beanDefinition = new BeanDefinition(ids[0], "com.study.entity.ConstructorUserService");
+            beanDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+            beanDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+            beanDefinition.setConstructorArguments(Collections.singletonList(ConstructorArgument.ref(ids[1])));
+            beanDefinitionMap.put(ids[0], beanDefinition);
+        }
+        try {
+            new GenericApplicationContext(() -> beanDefinitionMap);
+            fail();
+        } catch (CircularReferenceException e) {
+            assertTrue(e.getMessage().startsWith("Circular constructor reference between beans: "));
+        }
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testNoMatchingConstructor() {
+        BeanDefinition beanDefinition = new BeanDefinition("userService", "com.study.entity.ConstructorUserService");
+        beanDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        beanDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinition.setConstructorArguments(Collections.singletonList(ConstructorArgument.value("admins")));
+        new GenericApplicationContext(() -> Collections.singletonMap("userService", beanDefinition));
+    }
+
+    @Test
+    public void testCloseDestroysInReverseDependencyOrder() {
+        DestroyRecorder.DESTROYED.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("dataSource", getRecorderDefinition("dataSource", null, "stop", "20"));
+        beanDefinitionMap.put("userDao", getRecorderDefinition("userDao", "dataSource", "stop", "20"));
+        beanDefinitionMap.put("orderDao", getRecorderDefinition("orderDao", "dataSource", null, "0"));
+        beanDefinitionMap.put("userService", getRecorderDefinition("userService", "userDao", "stop", "0"));
+        BeanDefinition lazyDefinition = getRecorderDefinition("reportService", "dataSource", "stop", "0");
+        lazyDefinition.setLazyInit(true);
+        beanDefinitionMap.put("reportService", lazyDefinition);
+
+        try (GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap)) {
+            assertEquals(5, context.getBeanNames().size());
+        }
+
+        List<String> destroyed = new ArrayList<>(DestroyRecorder.DESTROYED);
+        assertEquals(new HashSet<>(Arrays.asList("dataSource", "userDao", "orderDao closed", "userService")), new HashSet<>(destroyed));
+        assertEquals(4, destroyed.size());
+        assertEquals("dataSource", destroyed.get(3));
+        assertTrue(destroyed.indexOf("userService") < destroyed.indexOf("userDao"));
+    }
+
+    @Test
+    public void testCloseTimeout() {
+        DestroyRecorder.DESTROYED.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("dataSource", getRecorderDefinition("dataSource", null, "stop", "0"));
+        beanDefinitionMap.put("userDao", getRecorderDefinition("userDao", "dataSource", "stop", "10000"));
+        ContextSettings settings = new ContextSettings();
+        settings.setDestroyTimeout(Duration.ofMillis(50));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, settings);
+
+        try {
+            context.close();
+            fail();
+        } catch (BeanDestructionException e) {
+            assertEquals("Bean userDao was not destroyed within 50 ms", e.getMessage());
+        }
+        assertEquals(Collections.singletonList("dataSource"), DestroyRecorder.DESTROYED);
+        context.close();
+        try {
+            context.getBean("dataSource");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Context is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testThreadScope() {
+        Map<String, BeanDefinition> beanDefinitionMap = getScopedDefinitions(BeanDefinition.SCOPE_THREAD);
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        MailService mailService = context.getBean("mailService", MailService.class);
+        assertSame(mailService, context.getBean(MailService.class));
+        assertEquals(25, mailService.getPort());
+        MailService otherThreadMailService = CompletableFuture.supplyAsync(() -> context.getBean("mailService", MailService.class)).join();
+        assertNotSame(mailService, otherThreadMailService);
+        IMailService injected = context.getBean("userService", DefaultUserService.class).getMailService();
+        assertTrue(Proxy.isProxyClass(injected.getClass()));
+        assertEquals("Scoped proxy for bean mailService", injected.toString());
+    }
+
+    @Test
+    public void testCustomScope() {
+        AtomicInteger lookups = new AtomicInteger();
+        Map<String, Object> tenantObjects = new HashMap<>();
+        ContextSettings settings = new ContextSettings();
+        settings.registerScope("tenant", new Scope() {
+            @Override
+            public Object get(String beanId, Supplier<Object> objectFactory) {
+                lookups.incrementAndGet();
+                return tenantObjects.computeIfAbsent(beanId, id -> objectFactory.get());
+            }
+
+            @Override
+            public Object remove(String beanId) {
+                return tenantObjects.remove(beanId);
+            }
+        });
+        Map<String, BeanDefinition> beanDefinitionMap = getScopedDefinitions("tenant");
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, settings);
+
+        IMailService injected = context.getBean("userService", DefaultUserService.class).getMailService();
+        assertEquals(0, lookups.get());
+        injected.sendEmail(null, "hello");
+        injected.sendEmail(null, "hello");
+        assertEquals(2, lookups.get());
+        assertSame(tenantObjects.get("mailService"), context.getBean("mailService"));
+    }
+
+    @Test
+    public void testUnknownScope() {
+        try {
+            new GenericApplicationContext(() -> getScopedDefinitions("tenant"));
+            fail();
+        } catch (BeanInstantiationException e) {
+            assertEquals("No scope tenant registered for bean mailService", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReloadDestroysReplacedBeans() {
+        DestroyRecorder.DESTROYED.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("dataSource", getRecorderDefinition("dataSource", null, "stop", "0"));
+        beanDefinitionMap.put("userDao", getRecorderDefinition("userDao", "dataSource", "stop", "0"));
+        beanDefinitionMap.put("auditLog", getRecorderDefinition("auditLog", null, "stop", "0"));
+        beanDefinitionMap.put("cache", getRecorderDefinition("cache", null, null, "0"));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+        Object auditLog = context.getBean("auditLog");
+
+        beanDefinitionMap.put("dataSource", getRecorderDefinition("dataSource", null, "stop", "1"));
+        beanDefinitionMap.remove("cache");
+        assertEquals(new HashSet<>(Arrays.asList("dataSource", "userDao")), context.reload());
+        assertTrue(DestroyRecorder.DESTROYED.indexOf("userDao") < DestroyRecorder.DESTROYED.indexOf("dataSource"));
+        assertEquals(new HashSet<>(Arrays.asList("userDao", "dataSource", "cache closed")), new HashSet<>(DestroyRecorder.DESTROYED));
+        assertSame(auditLog, context.getBean("auditLog"));
+
+        assertEquals(Collections.emptySet(), context.reload());
+        assertEquals(3, DestroyRecorder.DESTROYED.size());
+        context.close();
+        assertEquals(6, DestroyRecorder.DESTROYED.size());
+    }
+
+    @Test
+    public void testReloadWithSetterCycle() {
+        DestroyRecorder.DESTROYED.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("a", getRecorderDefinition("a", "b", null, "0"));
+        beanDefinitionMap.put("b", getRecorderDefinition("b", "a", null, "0"));
+        beanDefinitionMap.put("c", getRecorderDefinition("c", null, null, "0"));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+        Object c = context.getBean("c");
+
+        beanDefinitionMap.put("a", getRecorderDefinition("a", "b", null, "1"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), context.reload());
+        DestroyRecorder a = context.getBean("a", DestroyRecorder.class);
+        DestroyRecorder b = context.getBean("b", DestroyRecorder.class);
+        assertSame(b, a.getDependency());
+        assertSame(a, b.getDependency());
+        assertSame(c, context.getBean("c"));
+        assertEquals(new HashSet<>(Arrays.asList("a closed", "b closed")), new HashSet<>(DestroyRecorder.DESTROYED));
+    }
+
+    @Test
+    public void testPooledPrototype() {
+        DestroyRecorder.DESTROYED.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = getScopedDefinitions(BeanDefinition.SCOPE_PROTOTYPE);
+        beanDefinitionMap.get("mailService").setPoolSize(2);
+        BeanDefinition recorderDefinition = getRecorderDefinition("recorder", null, null, "0");
+        recorderDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        recorderDefinition.setPoolSize(1);
+        beanDefinitionMap.put("recorder", recorderDefinition);
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        BeanPool pool = context.getBeanPool("mailService");
+        assertEquals(0, pool.getIdleCount());
+        context.getBean("userService", DefaultUserService.class).getMailService().sendEmail(null, "hello");
+        assertEquals(1, pool.getIdleCount());
+        Object pooled = pool.borrow();
+        assertEquals(25, ((MailService) pooled).getPort());
+        assertNotSame(pooled, context.getBean("mailService"));
+        pool.release(pooled);
+
+        BeanPool recorderPool = context.getBeanPool("recorder");
+        recorderPool.release(recorderPool.borrow());
+        context.close();
+        assertEquals(Collections.singletonList("recorder closed"), DestroyRecorder.DESTROYED);
+    }
+
+    @Test
+    public void testGetBeansOfType() {
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader("context.xml").getBeanDefinition();
+        beanDefinitionMap.get("userServiceImap").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        Map<String, IMailService> mailServices = context.getBeansOfType(IMailService.class);
+        assertEquals(Arrays.asList("mailServiceIMAP", "mailServicePOP"), new ArrayList<>(mailServices.keySet()));
+        assertSame(context.getBean("mailServicePOP"), mailServices.get("mailServicePOP"));
+        assertSame(mailServices, context.getBeansOfType(IMailService.class));
+        assertEquals(Collections.singleton("userService"), context.getBeansOfType(DefaultUserService.class).keySet());
+        assertTrue(context.getBeansOfType(Runnable.class).isEmpty());
+        try {
+            mailServices.remove("mailServicePOP");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(2, context.getBeansOfType(IMailService.class).size());
+        }
+    }
+
+    @Test
+    public void testGetBeanHandle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader("context.xml").getBeanDefinition();
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+        BeanHandle<MailService> handle = context.getBeanHandle("mailServiceIMAP", MailService.class);
+        Object mailService = context.getBean("mailServiceIMAP");
+        assertSame(mailService, handle.get());
+        assertSame(mailService, handle.get());
+
+        BeanDefinition changedDefinition = new BeanDefinition("mailServiceIMAP", "com.study.entity.MailService");
+        changedDefinition.setValueDependencies(Collections.singletonMap("port", "993"));
+        changedDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinitionMap.put("mailServiceIMAP", changedDefinition);
+        context.reload();
+        assertNotSame(mailService, handle.get());
+        assertEquals(993, handle.get().getPort());
+
+        context.close();
+        try {
+            handle.get();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Context is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetBeanHandleOfPrototype() {
+        GenericApplicationContext context = new GenericApplicationContext(() -> getScopedDefinitions(BeanDefinition.SCOPE_PROTOTYPE));
+        BeanHandle<MailService> handle = context.getBeanHandle("mailService", MailService.class);
+        assertNotSame(handle.get(), handle.get());
+        assertEquals(25, handle.get().getPort());
+        assertTrue(context.getBeansOfType(MailService.class).isEmpty());
+    }
+
+    @Test(expected = NoSuchBeanDefinitionException.class)
+    public void testGetBeanHandleWrongClazz() {
+        GenericApplicationContext context = new GenericApplicationContext("context.xml");
+        context.getBeanHandle("mailServicePOP", DefaultUserService.class);
+    }
+
+    private static Map<String, BeanDefinition> getScopedDefinitions(String scope) {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailService", "com.study.entity.MailService");
+        mailServiceDefinition.setScope(scope);
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "25"));
+        mailServiceDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        beanDefinitionMap.put("mailService", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailService"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        return beanDefinitionMap;
+    }
+
+    private static BeanDefinition getRecorderDefinition(String id, String dependency, String destroyMethod, String stopMillis) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, DestroyRecorder.class.getName());
+        Map<String, String> valueDependencies = new HashMap<>();
+        valueDependencies.put("name", id);
+        valueDependencies.put("stopMillis", stopMillis);
+        beanDefinition.setValueDependencies(valueDependencies);
+        beanDefinition.setRefDependencies(dependency == null
+                ? Collections.<String, String>emptyMap() : Collections.singletonMap("dependency", dependency));
+        beanDefinition.setDestroyMethod(destroyMethod);
+        return beanDefinition;
+    }
+
+    private static BeanDefinition getOverloadedDefinition(String id, String className, String ref) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, className);
+        beanDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        beanDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        if (ref != null) {
+            beanDefinition.setConstructorArguments(Collections.singletonList(ConstructorArgument.ref(ref)));
+        }
+        return beanDefinition;
+    }
+
+    public static class OverloadedService {
+        private final IMailService mailService;
+        private final String name;
+
+        public OverloadedService(IMailService mailService) {
+            this.mailService = mailService;
+            this.name = null;
+        }
+
+        public OverloadedService(String name) {
+            this.mailService = null;
+            this.name = name;
+        }
+
+        public IMailService getMailService() {
+            return mailService;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class DestroyRecorder implements AutoCloseable {
+        public static final List<String> DESTROYED = Collections.synchronizedList(new ArrayList<>());
+
+        private String name;
+        private long stopMillis;
+        private DestroyRecorder dependency;
+
+        public void stop() throws InterruptedException {
+            Thread.sleep(stopMillis);
+            DESTROYED.add(name);
+        }
+
+        @Override
+        public void close() {
+            DESTROYED.add(name + " closed");
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setStopMillis(long stopMillis) {
+            this.stopMillis = stopMillis;
+        }
+
+        public void setDependency(DestroyRecorder dependency) {
+            this.dependency = dependency;
+        }
+
+        // values are injected before refs, so this holds a bean between being created and resolving its refs
+        public void setWireMillis(long wireMillis) throws InterruptedException {
+            Thread.sleep(wireMillis);
+        }
+
+        public DestroyRecorder getDependency() {
+            return dependency;
+        }
+    }
+
+    public static class CountingPostProcessor implements BeanPostProcessor {
+        private final List<String> processedBeans = new ArrayList<>();
+
+        @Override
+        public boolean supports(Class<?> beanClass) {
+            return beanClass == MailService.class;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanId) {
+            processedBeans.add(beanId);
+            return bean;
+        }
+
+        public List<String> getProcessedBeans() {
+            return processedBeans;
+        }
+    }
+
+    @Test
+    public void testStartupCache() throws Exception {
+        Path contextFile = temporaryFolder.newFile("context.xml").toPath();
+        String contextXml = new String(Files.readAllBytes(
+                Paths.get(getClass().getResource("/context.xml").toURI())), StandardCharsets.UTF_8);
+        Files.write(contextFile, contextXml.getBytes(StandardCharsets.UTF_8));
+        Path cacheFile = temporaryFolder.getRoot().toPath().resolve("context.cache");
+        AtomicInteger reads = new AtomicInteger();
+        Supplier<GenericApplicationContext> contextFactory = () -> {
+            ContextSettings settings = new ContextSettings();
+            settings.setStartupCache(cacheFile);
+            settings.setParallelRefresh(true);
+            return new GenericApplicationContext(new XmlBeanDefinitionReader("file:" + contextFile) {
+                @Override
+                public Map<String, BeanDefinition> getBeanDefinition() {
+                    reads.incrementAndGet();
+                    return super.getBeanDefinition();
+                }
+            }, settings);
+        };
+
+        contextFactory.get().close();
+        assertEquals(1, reads.get());
+        assertTrue(Files.exists(cacheFile));
+
+        GenericApplicationContext cachedContext = contextFactory.get();
+        assertEquals(1, reads.get());
+        assertEquals(995, cachedContext.getBean("mailServicePOP", MailService.class).getPort());
+        assertSame(cachedContext.getBean("mailServicePOP"),
+                cachedContext.getBean("userService", DefaultUserService.class).getMailService());
+        cachedContext.close();
+
+        Files.write(contextFile, contextXml.replace("995", "996").getBytes(StandardCharsets.UTF_8));
+        GenericApplicationContext changedContext = contextFactory.get();
+        assertEquals(2, reads.get());
+        assertEquals(996, changedContext.getBean("mailServicePOP", MailService.class).getPort());
+        changedContext.close();
+    }
+
+    @Test
+    public void testUndefinedRefIsReportedBeforeCreation() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("dataSource", getRecorderDefinition("dataSource", null, "stop", "0"));
+        beanDefinitionMap.put("userDao", getRecorderDefinition("userDao", "primaryDataSource", "stop", "0"));
+        AtomicInteger createdBeans = new AtomicInteger();
+        ContextSettings settings = new ContextSettings();
+        settings.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanId) {
+                createdBeans.incrementAndGet();
+                return bean;
+            }
+        });
+        try {
+            new GenericApplicationContext(() -> beanDefinitionMap, settings);
+            fail();
+        } catch (NoSuchBeanDefinitionException e) {
+            assertEquals("Bean userDao refers to undefined bean primaryDataSource in property dependency", e.getMessage());
+        }
+        assertEquals(0, createdBeans.get());
+    }
+
+    @Test
+    public void testUndefinedRefInChildIsReportedBeforeCreation() {
+        GenericApplicationContext parent = new GenericApplicationContext(() -> Collections.singletonMap("dataSource",
+                getRecorderDefinition("dataSource", null, null, "0")));
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("userDao", getRecorderDefinition("userDao", "dataSource", null, "0"));
+        beanDefinitionMap.put("reportDao", getRecorderDefinition("reportDao", "primaryDataSource", null, "0"));
+        AtomicInteger createdBeans = new AtomicInteger();
+        ContextSettings settings = new ContextSettings();
+        settings.setParent(parent);
+        settings.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanId) {
+                createdBeans.incrementAndGet();
+                return bean;
+            }
+        });
+        try {
+            new GenericApplicationContext(() -> beanDefinitionMap, settings);
+            fail();
+        } catch (NoSuchBeanDefinitionException e) {
+            assertEquals("Bean reportDao refers to undefined bean primaryDataSource in property dependency", e.getMessage());
+        }
+        assertEquals(0, createdBeans.get());
+
+        beanDefinitionMap.remove("reportDao");
+        GenericApplicationContext child = new GenericApplicationContext(() -> beanDefinitionMap, settings);
+        assertSame(parent.getBean("dataSource"), child.getBean("userDao", DestroyRecorder.class).getDependency());
+        assertTrue(child.containsBean("dataSource"));
+        assertFalse(child.containsBean("primaryDataSource"));
+    }
 }
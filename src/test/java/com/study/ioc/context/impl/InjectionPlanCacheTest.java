@@ -0,0 +1,51 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.DefaultUserService;
+import com.study.entity.IMailService;
+import com.study.entity.MailService;
+import com.study.ioc.convert.ConversionService;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InjectionPlanCacheTest {
+
+    private final InjectionPlanCache injectionPlanCache = new InjectionPlanCache(new LambdaInstantiationStrategy(), new ConversionService());
+
+    @Test
+    public void testPlanIsSharedPerClass() throws Exception {
+        InjectionPlan plan = injectionPlanCache.getPlan(MailService.class);
+        assertSame(plan, injectionPlanCache.getPlan(MailService.class));
+        assertSame(plan.getValueSetter("port"), injectionPlanCache.getPlan(MailService.class).getValueSetter("port"));
+        assertEquals(1, injectionPlanCache.size());
+    }
+
+    @Test
+    public void testValueSetterInjectsConvertedValue() throws Exception {
+        PropertySetter portSetter = injectionPlanCache.getPlan(MailService.class).getValueSetter("port");
+        assertEquals(Integer.TYPE, portSetter.getParameterType());
+
+        MailService mailService1 = new MailService();
+        MailService mailService2 = new MailService();
+        portSetter.injectValue(mailService1, "995");
+        portSetter.injectValue(mailService2, "995");
+        assertEquals(995, mailService1.getPort());
+        assertEquals(995, mailService2.getPort());
+    }
+
+    @Test
+    public void testRefSetter() throws Exception {
+        PropertySetter mailServiceSetter = injectionPlanCache.getPlan(DefaultUserService.class).getRefSetter("mailService");
+        assertEquals(IMailService.class, mailServiceSetter.getParameterType());
+
+        DefaultUserService userService = new DefaultUserService();
+        MailService mailService = new MailService();
+        mailServiceSetter.injectDependency(userService, mailService);
+        assertSame(mailService, userService.getMailService());
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void testMissingSetter() throws Exception {
+        injectionPlanCache.getPlan(MailService.class).getValueSetter("host");
+    }
+}
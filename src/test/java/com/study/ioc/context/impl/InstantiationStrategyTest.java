@@ -0,0 +1,63 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.ioc.context.ContextSettings;
+import com.study.ioc.context.InstantiationStrategy;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class InstantiationStrategyTest {
+
+    @Test
+    public void testLambdaInstantiationStrategy() throws Exception {
+        assertStrategy(new LambdaInstantiationStrategy());
+    }
+
+    @Test
+    public void testReflectiveInstantiationStrategy() throws Exception {
+        assertStrategy(new ReflectiveInstantiationStrategy());
+    }
+
+    @Test
+    public void testLambdaInstantiationStrategyFallsBackForNonPublicClass() throws Exception {
+        Supplier<Object> instantiator = new LambdaInstantiationStrategy().getInstantiator(HiddenBean.class);
+        assertEquals(HiddenBean.class, instantiator.get().getClass());
+    }
+
+    @Test
+    public void testContextWithReflectiveInstantiationStrategy() {
+        ContextSettings settings = new ContextSettings();
+        settings.setInstantiationStrategy(new ReflectiveInstantiationStrategy());
+        GenericApplicationContext context = new GenericApplicationContext(
+                new XmlBeanDefinitionReader("context.xml"), settings);
+        DefaultUserService userService = context.getBean("userService", DefaultUserService.class);
+        assertSame(context.getBean("mailServicePOP"), userService.getMailService());
+        assertEquals(995, context.getBean("mailServicePOP", MailService.class).getPort());
+    }
+
+    private void assertStrategy(InstantiationStrategy strategy) throws Exception {
+        Object bean = strategy.getInstantiator(MailService.class).get();
+        assertEquals(MailService.class, bean.getClass());
+
+        Method setPort = MailService.class.getDeclaredMethod("setPort", Integer.TYPE);
+        BiConsumer<Object, Object> portSetter = strategy.getSetter(setPort);
+        portSetter.accept(bean, 110);
+        assertEquals(110, ((MailService) bean).getPort());
+
+        Method setProtocol = MailService.class.getDeclaredMethod("setProtocol", String.class);
+        strategy.getSetter(setProtocol).accept(bean, "POP3");
+        assertEquals("POP3", ((MailService) bean).getProtocol());
+    }
+
+    static class HiddenBean {
+        public HiddenBean() {
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.study.ioc.convert;
+
+import com.study.ioc.context.ContextSettings;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.ConversionException;
+import com.study.ioc.exception.ProcessPostConstructException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConversionServiceTest {
+
+    private final ConversionService conversionService = new ConversionService();
+
+    @Test
+    public void testConvertSimpleTypes() {
+        assertEquals(Boolean.TRUE, conversionService.convert("TRUE", Boolean.TYPE));
+        assertEquals(42L, conversionService.convert(" 42 ", Long.class));
+        assertEquals('x', conversionService.convert("x", Character.TYPE));
+        assertEquals(TimeUnit.SECONDS, conversionService.convert("seconds", TimeUnit.class));
+        assertEquals(Duration.ofMillis(1500), conversionService.convert("1500ms", Duration.class));
+        assertEquals(Duration.ofMinutes(2), conversionService.convert("PT2M", Duration.class));
+        assertEquals(Duration.ofMillis(250), conversionService.convert("250", Duration.class));
+        assertEquals(DataSize.ofMegabytes(10), conversionService.convert("10MB", DataSize.class));
+        assertEquals(DataSize.ofBytes(512), conversionService.convert("512", DataSize.class));
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) conversionService.convert("1, 2, 3", int[].class));
+    }
+
+    @Test(expected = ConversionException.class)
+    public void testInvalidBoolean() {
+        conversionService.convert("yes", Boolean.class);
+    }
+
+    @Test
+    public void testUserConverter() {
+        assertFalse(conversionService.canConvert(String.class, Locale.class));
+        conversionService.addConverter(String.class, Locale.class, Locale::forLanguageTag);
+        assertEquals(Locale.GERMANY, conversionService.convert("de-DE", Locale.class));
+    }
+
+    @Test
+    public void testLiteralsAreShared() {
+        Converter<String, Object> converter = conversionService.getLiteralConverter(Duration.class);
+        assertSame(converter, conversionService.getLiteralConverter(Duration.class));
+        assertSame(converter.convert("5s"), converter.convert("5s"));
+        assertNull(conversionService.getLiteralConverter(Thread.class));
+    }
+
+    @Test
+    public void testMutableLiteralsAreNotShared() throws Exception {
+        Converter<String, Object> arrayConverter = conversionService.getLiteralConverter(int[].class);
+        int[] ports = (int[]) arrayConverter.convert("25, 465");
+        ports[0] = 0;
+        assertArrayEquals(new int[]{25, 465}, (int[]) arrayConverter.convert("25, 465"));
+        assertNotSame(arrayConverter.convert("25, 465"), arrayConverter.convert("25, 465"));
+
+        conversionService.addConverter(String.class, StringBuilder.class, StringBuilder::new);
+        Converter<String, Object> userConverter = conversionService.getLiteralConverter(StringBuilder.class);
+        assertNotSame(userConverter.convert("mail"), userConverter.convert("mail"));
+        Converter<String, Object> listConverter = conversionService.getLiteralConverter(
+                ConvertedBean.class.getMethod("setBuilders", List.class).getGenericParameterTypes()[0]);
+        assertNotSame(listConverter.convert("a, b"), listConverter.convert("a, b"));
+    }
+
+    @Test
+    public void testInjectConvertedValues() {
+        Map<String, String> values = new HashMap<>();
+        values.put("enabled", "true");
+        values.put("ports", "25, 465, 587");
+        values.put("timeouts", "connect=2s, read=PT30S");
+        values.put("unit", "MILLISECONDS");
+        values.put("bufferSize", "64KB");
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        for (String id : Arrays.asList("first", "second")) {
+            BeanDefinition beanDefinition = new BeanDefinition(id, ConvertedBean.class.getName());
+            beanDefinition.setValueDependencies(values);
+            beanDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+            beanDefinitionMap.put(id, beanDefinition);
+        }
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, new ContextSettings());
+
+        ConvertedBean first = context.getBean("first", ConvertedBean.class);
+        assertTrue(first.isEnabled());
+        assertEquals(Arrays.asList(25, 465, 587), first.getPorts());
+        assertEquals(Duration.ofSeconds(2), first.getTimeouts().get("connect"));
+        assertEquals(Duration.ofSeconds(30), first.getTimeouts().get("read"));
+        assertEquals(TimeUnit.MILLISECONDS, first.getUnit());
+        assertEquals(65536, first.getBufferSize().toBytes());
+        assertSame(first.getPorts(), context.getBean("second", ConvertedBean.class).getPorts());
+    }
+
+    @Test(expected = ProcessPostConstructException.class)
+    public void testInjectUnsupportedType() {
+        BeanDefinition beanDefinition = new BeanDefinition("bean", ConvertedBean.class.getName());
+        beanDefinition.setValueDependencies(Collections.singletonMap("thread", "main"));
+        beanDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        new GenericApplicationContext(() -> Collections.singletonMap("bean", beanDefinition));
+    }
+
+    public static class ConvertedBean {
+        private boolean enabled;
+        private List<Integer> ports;
+        private Map<String, Duration> timeouts;
+        private TimeUnit unit;
+        private DataSize bufferSize;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Integer> getPorts() {
+            return ports;
+        }
+
+        public void setPorts(List<Integer> ports) {
+            this.ports = ports;
+        }
+
+        public Map<String, Duration> getTimeouts() {
+            return timeouts;
+        }
+
+        public void setTimeouts(Map<String, Duration> timeouts) {
+            this.timeouts = timeouts;
+        }
+
+        public TimeUnit getUnit() {
+            return unit;
+        }
+
+        public void setUnit(TimeUnit unit) {
+            this.unit = unit;
+        }
+
+        public DataSize getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(DataSize bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public void setThread(Thread thread) {
+        }
+
+        public void setBuilders(List<StringBuilder> builders) {
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.CircularReferenceException;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DependencyGraphTest {
+
+    @Test
+    public void testGetLevels() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        addBeanDefinition(beanDefinitionMap, "mailServicePOP");
+        addBeanDefinition(beanDefinitionMap, "mailServiceIMAP");
+        addBeanDefinition(beanDefinitionMap, "userService", "mailServicePOP");
+        addBeanDefinition(beanDefinitionMap, "userServiceImap", "mailServiceIMAP");
+        addBeanDefinition(beanDefinitionMap, "auditService", "userService", "mailServiceIMAP");
+
+        DependencyGraph dependencyGraph = new DependencyGraph(beanDefinitionMap);
+        List<List<String>> levels = dependencyGraph.getLevels();
+
+        assertEquals(3, levels.size());
+        assertEquals(Arrays.asList("mailServiceIMAP", "mailServicePOP"), levels.get(0));
+        assertEquals(Arrays.asList("userService", "userServiceImap"), levels.get(1));
+        assertEquals(Collections.singletonList("auditService"), levels.get(2));
+        assertEquals(new HashSet<>(Arrays.asList("auditService", "userServiceImap")), dependencyGraph.getDependents("mailServiceIMAP"));
+    }
+
+    @Test
+    public void testGetLevelsReportsCycle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        addBeanDefinition(beanDefinitionMap, "a", "b");
+        addBeanDefinition(beanDefinitionMap, "b", "c");
+        addBeanDefinition(beanDefinitionMap, "c", "b");
+        addBeanDefinition(beanDefinitionMap, "d", "a");
+        try {
+            new DependencyGraph(beanDefinitionMap).getLevels();
+            fail();
+        } catch (CircularReferenceException e) {
+            assertEquals("Circular reference between beans: b -> c -> b", e.getMessage());
+        }
+    }
+
+    private void addBeanDefinition(Map<String, BeanDefinition> beanDefinitionMap, String id, String... refs) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.study.entity.DefaultUserService");
+        Map<String, String> refDependencies = new HashMap<>();
+        for (int i = 0; i < refs.length; i++) {
+            refDependencies.put("ref" + i, refs[i]);
+        }
+        beanDefinition.setRefDependencies(refDependencies);
+        beanDefinitionMap.put(id, beanDefinition);
+    }
+}
@@ -0,0 +1,75 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DependencyReportTest {
+
+    @Test
+    public void testDepthAndHotBeans() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        addBeanDefinition(beanDefinitionMap, "mailServicePOP");
+        addBeanDefinition(beanDefinitionMap, "mailServiceIMAP");
+        addBeanDefinition(beanDefinitionMap, "userService", "mailServicePOP");
+        addBeanDefinition(beanDefinitionMap, "userServiceImap", "mailServiceIMAP");
+        addBeanDefinition(beanDefinitionMap, "auditService", "userService", "mailServiceIMAP");
+
+        DependencyReport report = new DependencyReport(beanDefinitionMap);
+
+        assertEquals(5, report.getBeanCount());
+        assertEquals(4, report.getEdgeCount());
+        assertEquals(new DependencyGraph(beanDefinitionMap).getLevels().size(), report.getDepth());
+        assertEquals(Arrays.asList("mailServicePOP", "userService", "auditService"), report.getCriticalPath());
+        assertTrue(report.getMissingReferences().isEmpty());
+        assertTrue(report.getCycles().isEmpty());
+        assertEquals(2, report.getFanIn("mailServiceIMAP"));
+        assertEquals(Arrays.asList("mailServiceIMAP", "mailServicePOP", "userService"), report.getHotBeans(1));
+        assertEquals(Collections.singletonList("mailServiceIMAP"), report.getHotBeans(2));
+    }
+
+    @Test
+    public void testMissingRefsAndCycles() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        addBeanDefinition(beanDefinitionMap, "a", "b");
+        addBeanDefinition(beanDefinitionMap, "b", "c");
+        addBeanDefinition(beanDefinitionMap, "c", "b", "mailService");
+        addBeanDefinition(beanDefinitionMap, "d", "a");
+        addBeanDefinition(beanDefinitionMap, "e", "e");
+        beanDefinitionMap.get("d").setConstructorArguments(Arrays.asList(ConstructorArgument.value("1"), ConstructorArgument.ref("userService")));
+
+        DependencyReport report = new DependencyReport(beanDefinitionMap);
+
+        assertEquals(Arrays.asList(Arrays.asList("b", "c"), Collections.singletonList("e")), report.getCycles());
+        // b and c count once
+        assertEquals(Arrays.asList("b", "a", "d"), report.getCriticalPath());
+        List<DependencyReport.MissingReference> missingReferences = report.getMissingReferences();
+        assertEquals(2, missingReferences.size());
+        assertEquals("Bean c refers to undefined bean mailService in property ref1", missingReferences.get(0).toString());
+        assertEquals("Bean d refers to undefined bean userService in constructor argument 1", missingReferences.get(1).toString());
+
+        String json = report.toJson(1);
+        assertTrue(json.contains("\"depth\": 3"));
+        assertTrue(json.contains("{\"bean\": \"d\", \"constructorArgument\": 1, \"ref\": \"userService\"}"));
+        assertTrue(json.contains("[\"b\", \"c\"]"));
+        String dot = report.toDot(DependencyReport.DEFAULT_MIN_FAN_IN);
+        assertTrue(dot.startsWith("digraph beans {"));
+        assertTrue(dot.contains("\"b\" -> \"c\" [color=red];"));
+        assertTrue(dot.contains("\"a\" -> \"b\";"));
+        assertTrue(dot.contains("\"c\" -> \"mailService\" [style=dashed, color=red];"));
+    }
+
+    private void addBeanDefinition(Map<String, BeanDefinition> beanDefinitionMap, String id, String... refs) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.study.entity.DefaultUserService");
+        Map<String, String> refDependencies = new HashMap<>();
+        for (int i = 0; i < refs.length; i++) {
+            refDependencies.put("ref" + i, refs[i]);
+        }
+        beanDefinition.setRefDependencies(refDependencies);
+        beanDefinitionMap.put(id, beanDefinition);
+    }
+}
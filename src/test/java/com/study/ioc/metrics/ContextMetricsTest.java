@@ -0,0 +1,77 @@
+package com.study.ioc.metrics;
+
+import com.study.entity.DefaultUserService;
+import com.study.ioc.context.ContextSettings;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.exception.NoSuchBeanDefinitionException;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ContextMetricsTest {
+
+    @Test
+    public void testRefreshAndLookupMetrics() {
+        ContextMetrics contextMetrics = new ContextMetrics();
+        ContextSettings settings = new ContextSettings();
+        settings.setContextListener(contextMetrics);
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), settings);
+
+        context.getBean("userService");
+        context.getBean("userService", DefaultUserService.class);
+        try {
+            context.getBean("unknownService");
+            fail();
+        } catch (NoSuchBeanDefinitionException ignored) {
+        }
+
+        ContextMetricsSnapshot snapshot = contextMetrics.snapshot();
+        assertTrue(snapshot.getPhaseNanos().keySet().containsAll(Arrays.asList(RefreshPhase.values())));
+        assertEquals(4, snapshot.getBeanTimings().size());
+        for (BeanTiming beanTiming : snapshot.getBeanTimings()) {
+            if (beanTiming.getBeanId().equals("mailServicePOP")) {
+                assertTrue(beanTiming.getInjectionNanos().keySet().containsAll(Arrays.asList("port", "protocol")));
+            }
+        }
+        assertEquals(2L, (long) snapshot.getLookups().get(LookupKind.BY_ID));
+        assertEquals(1L, (long) snapshot.getMisses().get(LookupKind.BY_ID));
+        assertEquals(1L, (long) snapshot.getLookups().get(LookupKind.BY_ID_AND_TYPE));
+        assertEquals(0L, (long) snapshot.getLookups().get(LookupKind.BY_TYPE));
+    }
+
+    @Test
+    public void testRegisterMBean() throws Exception {
+        ContextMetrics contextMetrics = new ContextMetrics();
+        contextMetrics.onLookup(LookupKind.BY_TYPE, true, 100);
+        ObjectName objectName = contextMetrics.registerMBean("test");
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ContextMetricsMXBean proxy = JMX.newMXBeanProxy(mBeanServer, objectName, ContextMetricsMXBean.class);
+            Map<String, Long> lookupCounts = proxy.getLookupCounts();
+            assertEquals(1L, (long) lookupCounts.get("BY_TYPE"));
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            latencyHistogram.record(100);
+        }
+        latencyHistogram.record(5000);
+        assertEquals(100, latencyHistogram.getCount());
+        assertEquals(128, latencyHistogram.getPercentile(50));
+        assertEquals(128, latencyHistogram.getPercentile(99));
+        assertEquals(8192, latencyHistogram.getPercentile(100));
+    }
+}
@@ -0,0 +1,51 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.entity.BeanDefinition;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AnnotationBeanDefinitionReaderTest {
+
+    @Test
+    public void testGetBeanDefinition() {
+        Map<String, BeanDefinition> beanDefinitionMap =
+                new AnnotationBeanDefinitionReader("com.study.ioc.reader.annotation").getBeanDefinition();
+
+        assertEquals(new HashSet<>(Arrays.asList("componentMailService", "componentUserService")), beanDefinitionMap.keySet());
+        BeanDefinition mailServiceDefinition = beanDefinitionMap.get("componentMailService");
+        assertEquals(ComponentMailService.class.getName(), mailServiceDefinition.getClassName());
+        assertEquals("587", mailServiceDefinition.getValueDependencies().get("port"));
+        assertEquals("SMTP", mailServiceDefinition.getValueDependencies().get("protocol"));
+        assertTrue(mailServiceDefinition.getRefDependencies().isEmpty());
+        BeanDefinition userServiceDefinition = beanDefinitionMap.get("componentUserService");
+        assertTrue(userServiceDefinition.isLazyInit());
+        assertEquals(Collections.singletonMap("mailService", "componentMailService"), userServiceDefinition.getRefDependencies());
+    }
+
+    @Test
+    public void testIndexAndClassPathScanFindSameComponents() {
+        AnnotationBeanDefinitionReader reader = new AnnotationBeanDefinitionReader("com.study.ioc");
+        Set<String> indexedClassNames = reader.readIndex();
+        assertNotNull(indexedClassNames);
+        assertTrue(indexedClassNames.contains(ComponentMailService.class.getName()));
+        assertTrue(reader.scanClassPath().containsAll(indexedClassNames));
+        assertEquals(Collections.emptyMap(), new AnnotationBeanDefinitionReader("com.study.entity").getBeanDefinition());
+    }
+
+    @Test
+    public void testContextFromComponents() {
+        GenericApplicationContext context = new GenericApplicationContext(
+                new AnnotationBeanDefinitionReader("com.study.ioc.reader.annotation"));
+        ComponentUserService userService = context.getBean(ComponentUserService.class);
+        assertSame(context.getBean("componentMailService"), userService.getMailService());
+        assertEquals(587, ((ComponentMailService) userService.getMailService()).getPort());
+    }
+}
@@ -0,0 +1,21 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.entity.MailService;
+import com.study.ioc.annotation.Component;
+import com.study.ioc.annotation.Value;
+
+@Component("componentMailService")
+public class ComponentMailService extends MailService {
+
+    @Override
+    @Value("587")
+    public void setPort(int port) {
+        super.setPort(port);
+    }
+
+    @Override
+    @Value("SMTP")
+    public void setProtocol(String protocol) {
+        super.setProtocol(protocol);
+    }
+}
@@ -0,0 +1,19 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.entity.IMailService;
+import com.study.ioc.annotation.Component;
+import com.study.ioc.annotation.Inject;
+
+@Component(lazyInit = true)
+public class ComponentUserService {
+    @Inject
+    private IMailService mailService;
+
+    public IMailService getMailService() {
+        return mailService;
+    }
+
+    public void setMailService(IMailService mailService) {
+        this.mailService = mailService;
+    }
+}
@@ -0,0 +1,118 @@
+package com.study.ioc.reader.binary;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryBeanDefinitionReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCompileAndRead() throws Exception {
+        Map<String, BeanDefinition> expected = new XmlBeanDefinitionReader("context.xml").getBeanDefinition();
+        expected.get("mailServiceIMAP").setLazyInit(true);
+        expected.get("userServiceImap").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        expected.get("userServiceImap").setPoolSize(4);
+        expected.get("userServiceImap").setPoolMaxIdleMillis(30000);
+        expected.get("mailServicePOP").setInitMethod("init");
+        expected.get("userService").setConstructorArguments(Arrays.asList(ConstructorArgument.value("POP3"), ConstructorArgument.ref("mailServicePOP")));
+        Path compiled = temporaryFolder.newFile("context.bin").toPath();
+
+        new BinaryBeanDefinitionCompiler().compile(expected, compiled);
+        Map<String, BeanDefinition> actual = new BinaryBeanDefinitionReader(compiled).getBeanDefinition();
+
+        assertEquals(expected.keySet(), actual.keySet());
+        for (BeanDefinition expectedDefinition : expected.values()) {
+            BeanDefinition actualDefinition = actual.get(expectedDefinition.getId());
+            assertEquals(expectedDefinition.getClassName(), actualDefinition.getClassName());
+            assertEquals(expectedDefinition.getScope(), actualDefinition.getScope());
+            assertEquals(expectedDefinition.isLazyInit(), actualDefinition.isLazyInit());
+            assertEquals(expectedDefinition.getInitMethod(), actualDefinition.getInitMethod());
+            assertEquals(expectedDefinition.getDestroyMethod(), actualDefinition.getDestroyMethod());
+            assertEquals(expectedDefinition.getValueDependencies(), actualDefinition.getValueDependencies());
+            assertEquals(expectedDefinition.getRefDependencies(), actualDefinition.getRefDependencies());
+            assertEquals(expectedDefinition.getConstructorArguments(), actualDefinition.getConstructorArguments());
+            assertEquals(expectedDefinition, actualDefinition);
+        }
+        assertSame(actual.get("mailServicePOP").getClassName(), actual.get("mailServiceIMAP").getClassName());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testReadCorruptedFile() {
+        new BinaryBeanDefinitionReader(null).getBeanDefinitionMap(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void testReadTruncatedFile() throws Exception {
+        Path compiled = temporaryFolder.newFile("context.bin").toPath();
+        new BinaryBeanDefinitionCompiler().compile(new XmlBeanDefinitionReader("context.xml").getBeanDefinition(), compiled);
+        byte[] bytes = Files.readAllBytes(compiled);
+
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(compiled, Arrays.copyOf(bytes, length));
+            try {
+                new BinaryBeanDefinitionReader(compiled).getBeanDefinition();
+                fail("Read a file truncated to " + length + " bytes");
+            } catch (ParseContextException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testReadOutOfRangeStringIndex() throws Exception {
+        ByteBuffer buffer = new BinaryBeanDefinitionCompiler().compile(new XmlBeanDefinitionReader("context.xml").getBeanDefinition());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int firstRecord = BinaryFormat.HEADER_SIZE + (buffer.getInt(8) + 1) * 4;
+        buffer.putInt(firstRecord, Integer.MAX_VALUE);
+        try {
+            new BinaryBeanDefinitionReader(null).getBeanDefinitionMap(buffer);
+            fail();
+        } catch (ParseContextException e) {
+            assertTrue(e.getMessage().contains("out of range"));
+        }
+    }
+
+    @Test
+    public void testReadOutOfRangeFirstProperty() throws Exception {
+        ByteBuffer buffer = new BinaryBeanDefinitionCompiler().compile(new XmlBeanDefinitionReader("context.xml").getBeanDefinition());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int firstRecord = BinaryFormat.HEADER_SIZE + (buffer.getInt(8) + 1) * 4;
+        for (int firstProperty : new int[]{1_000_000, -1, Integer.MAX_VALUE}) {
+            buffer.putInt(firstRecord + 24, firstProperty);
+            try {
+                new BinaryBeanDefinitionReader(null).getBeanDefinitionMap(buffer);
+                fail("Read a file with first property " + firstProperty);
+            } catch (ParseContextException e) {
+                assertTrue(e.getMessage().contains("out of range"));
+            }
+        }
+    }
+
+    @Test
+    public void testReadMissingFileKeepsCause() {
+        Path missing = temporaryFolder.getRoot().toPath().resolve("missing.bin");
+        try {
+            new BinaryBeanDefinitionReader(missing).getBeanDefinition();
+            fail();
+        } catch (ParseContextException e) {
+            assertTrue(e.getCause() instanceof NoSuchFileException);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.study.ioc.reader.binary;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.binary.StartupCache.SetterSignature;
+import com.study.ioc.reader.binary.StartupCache.Snapshot;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import com.study.ioc.resource.FileSystemResource;
+import com.study.ioc.resource.Resource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StartupCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        Map<String, BeanDefinition> beanDefinitions = new XmlBeanDefinitionReader("context.xml").getBeanDefinition();
+        List<List<String>> levels = Arrays.asList(Arrays.asList("mailServiceIMAP", "mailServicePOP"),
+                Arrays.asList("userService", "userServiceImap"));
+        SetterSignature setter = new SetterSignature("com.study.entity.MailService", false, "port",
+                "com.study.entity.MailService", "int");
+        StartupCache startupCache = new StartupCache(temporaryFolder.getRoot().toPath().resolve("cache/context.cache"));
+        byte[] key = new byte[StartupCache.KEY_SIZE];
+        key[0] = 1;
+
+        startupCache.store(key, new Snapshot(beanDefinitions, levels, Collections.singletonList(setter)));
+        Snapshot snapshot = startupCache.load(key);
+
+        assertEquals(beanDefinitions, snapshot.getBeanDefinitions());
+        assertEquals(levels, snapshot.getLevels());
+        assertEquals(1, snapshot.getSetters().size());
+        assertEquals("port", snapshot.getSetters().get(0).getProperty());
+        assertEquals("int", snapshot.getSetters().get(0).getParameterType());
+        assertFalse(snapshot.getSetters().get(0).isRef());
+
+        key[0] = 2;
+        assertNull(startupCache.load(key));
+        assertNull(new StartupCache(temporaryFolder.getRoot().toPath().resolve("missing.cache")).load(key));
+    }
+
+    @Test
+    public void testLoadWithoutLevelsAndCorrupt() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("context.cache");
+        StartupCache startupCache = new StartupCache(path);
+        byte[] key = new byte[StartupCache.KEY_SIZE];
+        startupCache.store(key, new Snapshot(new XmlBeanDefinitionReader("context.xml").getBeanDefinition(),
+                null, Collections.<SetterSignature>emptyList()));
+        assertNull(startupCache.load(key).getLevels());
+
+        byte[] content = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(content, content.length - 10));
+        assertNull(startupCache.load(key));
+    }
+
+    @Test
+    public void testKeyFollowsContent() throws Exception {
+        Path contextFile = temporaryFolder.newFile("context.xml").toPath();
+        List<Resource> resources = Collections.singletonList(new FileSystemResource(contextFile));
+        String classPath = temporaryFolder.getRoot() + File.pathSeparator + System.getProperty("java.class.path");
+        Files.write(contextFile, "<beans/>".getBytes(StandardCharsets.UTF_8));
+        byte[] key = StartupCache.getKey("reader", resources, classPath);
+
+        assertArrayEquals(key, StartupCache.getKey("reader", resources, classPath));
+        assertFalse(Arrays.equals(key, StartupCache.getKey("otherReader", resources, classPath)));
+        Files.write(contextFile, "<beans></beans>".getBytes(StandardCharsets.UTF_8));
+        assertFalse(Arrays.equals(key, StartupCache.getKey("reader", resources, classPath)));
+    }
+
+    @Test
+    public void testKeyFollowsClassPathArchives() throws Exception {
+        List<Resource> resources = Collections.emptyList();
+        Path archive = temporaryFolder.newFile("beans.jar").toPath();
+        String classPath = archive + File.pathSeparator + temporaryFolder.getRoot();
+        Files.write(archive, new byte[]{1});
+        byte[] key = StartupCache.getKey("reader", resources, classPath);
+
+        assertArrayEquals(key, StartupCache.getKey("reader", resources, classPath));
+        Files.write(archive, new byte[]{1, 2});
+        assertFalse(Arrays.equals(key, StartupCache.getKey("reader", resources, classPath)));
+        assertFalse(Arrays.equals(key, StartupCache.getKey("reader", resources, temporaryFolder.getRoot().toString())));
+    }
+}
@@ -1,9 +1,16 @@
 package com.study.ioc.reader.sax;
 
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.ParseContextException;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -68,4 +75,121 @@ public class XmlBeanDefinitionReaderTest {
         assertEquals("IMAP", valueDependencies3.get("protocol"));
 
     }
+
+    @Test
+    public void testGetBeanDefinitionMapScopeAndLazyInit() throws Exception {
+        String contextXml = "<beans>" +
+                "<bean id=\"mailServicePOP\" class=\"com.study.entity.MailService\"/>" +
+                "<bean id=\"mailServiceIMAP\" class=\"com.study.entity.MailService\" scope=\"prototype\" lazy-init=\"true\"/>" +
+                "</beans>";
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        BeanDefinition defaultDefinition = beanDefinitionMap.get("mailServicePOP");
+        assertTrue(defaultDefinition.isSingleton());
+        assertFalse(defaultDefinition.isLazyInit());
+        BeanDefinition prototypeDefinition = beanDefinitionMap.get("mailServiceIMAP");
+        assertTrue(prototypeDefinition.isPrototype());
+        assertTrue(prototypeDefinition.isLazyInit());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMapUnknownScope() throws Exception {
+        String contextXml = "<beans><bean id=\"mailService\" class=\"com.study.entity.MailService\" scope=\"session\"/></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test
+    public void testGetBeanDefinitionFromSeveralFiles() {
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader("mail-context.xml", "user-context.xml").getBeanDefinition();
+        assertEquals(new XmlBeanDefinitionReader("context.xml").getBeanDefinition().keySet(), beanDefinitionMap.keySet());
+        assertEquals("mailServiceIMAP", beanDefinitionMap.get("userServiceImap").getRefDependencies().get("mailService"));
+    }
+
+    @Test
+    public void testGetBeanDefinitionDuplicateIdInSeveralFiles() {
+        try {
+            new XmlBeanDefinitionReader("mail-context.xml", "user-context.xml", "context.xml").getBeanDefinition();
+            fail();
+        } catch (ParseContextException e) {
+            assertEquals("Duplicate bean id mailServiceIMAP in context.xml, already defined in mail-context.xml", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetBeanDefinitionWithConstructorArguments() {
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader("constructor-context.xml").getBeanDefinition();
+        assertEquals(Arrays.asList(ConstructorArgument.value("admins"), ConstructorArgument.value("42"), ConstructorArgument.ref("mailService")),
+                beanDefinitionMap.get("userService").getConstructorArguments());
+        assertTrue(beanDefinitionMap.get("mailService").getConstructorArguments().isEmpty());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionConstructorArgumentWithValueAndRef() throws Exception {
+        String contextXml = "<beans><bean id=\"userService\" class=\"com.study.entity.ConstructorUserService\">"
+                + "<constructor-arg value=\"admins\" ref=\"mailService\"/></bean></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test
+    public void testGetBeanDefinitionWithScopesAndPool() throws Exception {
+        String contextXml = "<beans><bean id=\"mailService\" class=\"com.study.entity.MailService\" scope=\"prototype\""
+                + " pool-size=\"8\" pool-max-idle-millis=\"60000\"/>"
+                + "<bean id=\"userService\" class=\"com.study.entity.DefaultUserService\" scope=\"thread\"/>"
+                + "<bean id=\"tenantService\" class=\"com.study.entity.DefaultUserService\" scope=\"tenant\"/></beans>";
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader();
+        xmlBeanDefinitionReader.addScope("tenant");
+        Map<String, BeanDefinition> beanDefinitionMap = xmlBeanDefinitionReader.getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        assertEquals(8, beanDefinitionMap.get("mailService").getPoolSize());
+        assertEquals(60000, beanDefinitionMap.get("mailService").getPoolMaxIdleMillis());
+        assertTrue(beanDefinitionMap.get("mailService").isPooled());
+        assertEquals(BeanDefinition.SCOPE_THREAD, beanDefinitionMap.get("userService").getScope());
+        assertFalse(beanDefinitionMap.get("userService").isPooled());
+        assertEquals("tenant", beanDefinitionMap.get("tenantService").getScope());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionPooledSingleton() throws Exception {
+        String contextXml = "<beans><bean id=\"mailService\" class=\"com.study.entity.MailService\" pool-size=\"8\"/></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test
+    public void testGetBeanDefinitionSharesStrings() throws Exception {
+        String contextXml = "<beans><bean id=\"mailService\" class=\"com.study.entity.MailService\">"
+                + "<property name=\"protocol\" value=\"POP3\"/><property name=\"port\" value=\"25\"/>"
+                + "<property name=\"port\" value=\"995\"/></bean>"
+                + "<Bean id=\"backupMailService\" class=\"com.study.entity.MailService\">"
+                + "<Property name=\"port\" value=\"995\"/></Bean></beans>";
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        Map<String, String> expectedValues = new HashMap<>();
+        expectedValues.put("port", "995");
+        expectedValues.put("protocol", "POP3");
+        Map<String, String> values = beanDefinitionMap.get("mailService").getValueDependencies();
+        Map<String, String> backupValues = beanDefinitionMap.get("backupMailService").getValueDependencies();
+        assertEquals(expectedValues, values);
+        assertEquals(expectedValues.hashCode(), values.hashCode());
+        assertSame(values.get("port"), backupValues.get("port"));
+        assertSame(beanDefinitionMap.get("mailService").getClassName(), beanDefinitionMap.get("backupMailService").getClassName());
+    }
+
+    @Test
+    public void testReadBeanDefinitionsStreaming() {
+        List<String> ids = new ArrayList<>();
+        new XmlBeanDefinitionReader("mail-context.xml", "user-context.xml").readBeanDefinitions(beanDefinition -> ids.add(beanDefinition.getId()));
+        assertEquals(new XmlBeanDefinitionReader("context.xml").getBeanDefinition().keySet(), new HashSet<>(ids));
+        assertEquals(new XmlBeanDefinitionReader("context.xml").getBeanDefinition().size(), ids.size());
+
+        List<String> streamedIds = new ArrayList<>();
+        try {
+            new XmlBeanDefinitionReader("mail-context.xml", "user-context.xml", "context.xml")
+                    .readBeanDefinitions(beanDefinition -> streamedIds.add(beanDefinition.getId()));
+            fail();
+        } catch (ParseContextException e) {
+            assertTrue(e.getMessage().contains("in context.xml, already defined in"));
+        }
+        // everything before the duplicate has been handed over already
+        assertEquals(ids, streamedIds);
+    }
 }
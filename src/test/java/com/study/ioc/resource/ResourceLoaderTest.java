@@ -0,0 +1,98 @@
+package com.study.ioc.resource;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ResourceLoaderTest {
+
+    private static final String MAIL_CONTEXT_XML = "<beans><bean id=\"mailService\" class=\"com.study.entity.MailService\"/></beans>";
+    private static final String USER_CONTEXT_XML = "<beans><bean id=\"userService\" class=\"com.study.entity.DefaultUserService\">" +
+            "<property name=\"mailService\" ref=\"mailService\"/></bean></beans>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testClassPathPattern() throws Exception {
+        List<Resource> resources = new ResourceLoader().getResources("classpath*:*-context.xml");
+        List<String> fileNames = new ArrayList<>();
+        for (Resource resource : resources) {
+            String description = resource.getDescription();
+            fileNames.add(description.substring(description.lastIndexOf('/') + 1));
+        }
+        assertTrue(fileNames.containsAll(Arrays.asList("mail-context.xml", "user-context.xml")));
+    }
+
+    @Test
+    public void testJarPattern() throws Exception {
+        File jar = temporaryFolder.newFile("contexts.jar");
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            addEntry(jarOutputStream, "ctx/mail.xml", MAIL_CONTEXT_XML);
+            addEntry(jarOutputStream, "ctx/users/user.xml", USER_CONTEXT_XML);
+            addEntry(jarOutputStream, "ctx/readme.txt", "not a context");
+        }
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, null)) {
+            ResourceLoader resourceLoader = new ResourceLoader(classLoader);
+            assertEquals(1, resourceLoader.getResources("classpath*:ctx/*.xml").size());
+
+            XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader("classpath*:ctx/**/*.xml");
+            reader.setResourceLoader(resourceLoader);
+            Map<String, BeanDefinition> beanDefinitionMap = reader.getBeanDefinition();
+            assertEquals(new HashSet<>(Arrays.asList("mailService", "userService")), beanDefinitionMap.keySet());
+        }
+    }
+
+    @Test
+    public void testFilePattern() throws Exception {
+        File directory = temporaryFolder.newFolder("ctx");
+        Files.write(new File(directory, "mail.xml").toPath(), MAIL_CONTEXT_XML.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(directory, "user.xml").toPath(), USER_CONTEXT_XML.getBytes(StandardCharsets.UTF_8));
+        String pattern = "file:" + directory.getAbsolutePath().replace('\\', '/') + "/*.xml";
+
+        List<Resource> resources = new ResourceLoader().getResources(pattern);
+        assertEquals(2, resources.size());
+        assertTrue(resources.get(0).getDescription().endsWith("mail.xml"));
+        assertEquals(2, new XmlBeanDefinitionReader(pattern).getBeanDefinition().size());
+    }
+
+    @Test
+    public void testByteBufferResource() {
+        List<Resource> resources = Arrays.<Resource>asList(
+                new ByteBufferResource(MAIL_CONTEXT_XML.getBytes(StandardCharsets.UTF_8), "mail"),
+                new ByteBufferResource(USER_CONTEXT_XML.getBytes(StandardCharsets.UTF_8), "user"));
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader(resources).getBeanDefinition();
+        assertEquals("mailService", beanDefinitionMap.get("userService").getRefDependencies().get("mailService"));
+    }
+
+    @Test
+    public void testToRegex() {
+        assertTrue(ResourceLoader.toRegex("*.xml").matcher("context.xml").matches());
+        assertFalse(ResourceLoader.toRegex("*.xml").matcher("ctx/context.xml").matches());
+        assertTrue(ResourceLoader.toRegex("**/*.xml").matcher("context.xml").matches());
+        assertTrue(ResourceLoader.toRegex("**/*.xml").matcher("a/b/context.xml").matches());
+        assertTrue(ResourceLoader.toRegex("context-?.xml").matcher("context-1.xml").matches());
+        assertEquals("ctx/", ResourceLoader.getRootDirectory("ctx/*/context.xml"));
+        assertEquals("", ResourceLoader.getRootDirectory("*.xml"));
+    }
+
+    private void addEntry(JarOutputStream jarOutputStream, String name, String content) throws Exception {
+        jarOutputStream.putNextEntry(new JarEntry(name));
+        jarOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        jarOutputStream.closeEntry();
+    }
+}